@@ -0,0 +1,87 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.io.ParallelCopier;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Copies a generated data directory with the previous serial Files.copy walk and with
+// ParallelCopier (with and without verification, which also forces every segment to
+// storage), and compares throughput.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.BackupCopyBenchmark [smallFiles] [largeFiles] [largeFileMB]
+public class BackupCopyBenchmark {
+    private static final int SMALL_FILE_SIZE = 1 << 20;
+    
+    public static void main(String[] args) throws Exception {
+        int smallFiles = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int largeFiles = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int largeMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        
+        Path root = Files.createTempDirectory("ccrm-copy");
+        try {
+            Path source = root.resolve("data");
+            long bytes = generate(source, smallFiles, largeFiles, largeMegabytes);
+            System.out.printf("%d files, %,d bytes, %d threads%n", smallFiles + largeFiles, bytes,
+                ParallelCopier.defaultThreads());
+            
+            long start = System.nanoTime();
+            serialCopy(source, root.resolve("serial"));
+            report("Files.copy (previous)", bytes, System.nanoTime() - start);
+            
+            ParallelCopier.Report plain = new ParallelCopier(ParallelCopier.defaultThreads(), false)
+                .copy(source, root.resolve("parallel"), null);
+            report("parallel transferTo", bytes, plain.getElapsedNanos());
+            
+            ParallelCopier.Report verified = new ParallelCopier().copy(source, root.resolve("verified"), null);
+            report("parallel + verify", bytes, verified.getElapsedNanos());
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static long generate(Path source, int smallFiles, int largeFiles, int largeMegabytes) throws IOException {
+        Random random = new Random(42);
+        byte[] block = new byte[SMALL_FILE_SIZE];
+        long total = 0;
+        
+        Files.createDirectories(source.resolve("small"));
+        for (int i = 0; i < smallFiles; i++) {
+            random.nextBytes(block);
+            Files.write(source.resolve("small").resolve("file" + i + ".bin"), block);
+            total += block.length;
+        }
+        for (int i = 0; i < largeFiles; i++) {
+            Path file = source.resolve("large" + i + ".bin");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                for (int mb = 0; mb < largeMegabytes; mb++) {
+                    random.nextBytes(block);
+                    out.write(block);
+                }
+            }
+            total += (long) largeMegabytes * SMALL_FILE_SIZE;
+        }
+        return total;
+    }
+    
+    // The copy ImportExportService used before ParallelCopier
+    private static void serialCopy(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path targetPath = target.resolve(source.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(targetPath);
+                } else {
+                    Files.copy(path, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+    
+    private static void report(String label, long bytes, long nanos) {
+        System.out.printf("%-24s %8.1f ms %8.1f MB/s%n", label, nanos / 1e6, bytes / 1e6 / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,293 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.BackupStore;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.JsonWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Benchmarks for the service and IO hot paths over SyntheticDataset, run the way JMH runs
+// them: per dataset size, each benchmark gets warmup iterations and then timed iterations
+// of a fixed duration, reported as average ns/op with a 99.9% confidence interval. Results
+// are also written as JSON in JMH's result layout, so runs can be diffed between releases.
+// Run with: java -Xmx4g -cp bin:bin-bench edu.ccrm.bench.BenchmarkRunner [--sizes 10000,1000000]
+//           [--filter regex] [--warmup 2] [--iterations 5] [--time-ms 1000] [--out results.json]
+public class BenchmarkRunner {
+    private static final int KEY_COUNT = 1 << 16;
+    
+    // Results are written here so the JIT cannot discard the work that produced them
+    private static volatile long blackhole;
+    
+    // Two-sided 99.9% Student's t quantiles for 1..20 degrees of freedom
+    private static final double[] T_999 = {
+        636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850
+    };
+    
+    @FunctionalInterface
+    interface Operation {
+        // Runs one operation against the fixture; the result is folded into a sink
+        long run(Fixture fixture) throws Exception;
+    }
+    
+    private static final class Case {
+        final String name;
+        final Operation operation;
+        
+        Case(String name, Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+    
+    // A generated dataset loaded into fresh services, plus pre-drawn random keys
+    static final class Fixture {
+        final SyntheticDataset dataset;
+        final StudentService students = new StudentService();
+        final CourseService courses = new CourseService();
+        final Path scratch;
+        final int[] studentKeys = new int[KEY_COUNT];
+        final int[] courseKeys = new int[KEY_COUNT];
+        int cursor;
+        
+        Fixture(int size, long seed) throws Exception {
+            dataset = SyntheticDataset.generate(size, seed);
+            dataset.loadInto(students, courses);
+            scratch = Files.createTempDirectory("ccrm-bench");
+            Random random = new Random(seed);
+            for (int i = 0; i < KEY_COUNT; i++) {
+                studentKeys[i] = random.nextInt(dataset.getStudents().size());
+                courseKeys[i] = random.nextInt(dataset.getCourses().size());
+            }
+        }
+        
+        Student nextStudent() {
+            return dataset.getStudents().get(studentKeys[cursor++ & (KEY_COUNT - 1)]);
+        }
+        
+        Course nextCourse() {
+            return dataset.getCourses().get(courseKeys[cursor++ & (KEY_COUNT - 1)]);
+        }
+        
+        void close() throws Exception {
+            try (Stream<Path> paths = Files.walk(scratch)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("student.save", f -> {
+            f.students.save(f.nextStudent());
+            return 1;
+        }));
+        cases.add(new Case("student.findById", f -> f.students.findById(f.nextStudent().getId()).getId().length()));
+        cases.add(new Case("student.search", f -> f.students.search(s -> s.calculateGPA() >= 9.5).size()));
+        cases.add(new Case("student.filterBy.name", f ->
+            f.students.filterBy("name", f.nextStudent().getName().getLastName()).size()));
+        cases.add(new Case("student.topStudents", f -> f.students.getTopStudents(10, false).size()));
+        cases.add(new Case("student.calculateGPA", f -> (long) f.nextStudent().calculateGPA()));
+        cases.add(new Case("course.save", f -> {
+            f.courses.save(f.nextCourse());
+            return 1;
+        }));
+        cases.add(new Case("course.findById", f -> f.courses.findById(f.nextCourse().getCode()).getCredits()));
+        cases.add(new Case("course.filterBy.department", f ->
+            f.courses.filterBy("department", f.nextCourse().getDepartment()).size()));
+        cases.add(new Case("csv.exportStudents", f -> {
+            Path file = f.scratch.resolve("students.csv");
+            ImportExportService.CSVHandler.exportStudents(f.dataset.getStudents(), file);
+            return Files.size(file);
+        }));
+        cases.add(new Case("backup.snapshot", f -> {
+            Path file = f.scratch.resolve("ccrm.snap");
+            BinarySnapshot.write(file, f.dataset.getStudents(), f.dataset.getCourses(), f.dataset.getInstructors());
+            return Files.size(file);
+        }));
+        // Full (first) incremental backup of a data directory holding the CSV export
+        cases.add(new Case("backup.incremental", f -> {
+            Path data = f.scratch.resolve("data");
+            if (!Files.exists(data)) {
+                Files.createDirectories(data);
+                ImportExportService.CSVHandler.exportStudents(f.dataset.getStudents(), data.resolve("students.csv"));
+            }
+            Path store = Files.createTempDirectory(f.scratch, "backups");
+            return new BackupStore(store).backup(data).getBytesRead();
+        }));
+        return cases;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = Arrays.asList(10_000, 1_000_000);
+        Pattern filter = Pattern.compile(".*");
+        int warmup = 2;
+        int iterations = 5;
+        long iterationNanos = 1_000_000_000L;
+        long seed = SyntheticDataset.DEFAULT_SEED;
+        Path output = Paths.get("benchmark-results.json");
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = new ArrayList<>();
+                    for (String size : value.split(",")) sizes.add(Integer.parseInt(size.trim()));
+                    break;
+                case "--filter":
+                    filter = Pattern.compile(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time-ms":
+                    iterationNanos = Long.parseLong(value) * 1_000_000L;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--out":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        
+        JsonWriter json = new JsonWriter(new StringBuilder(), true).beginArray();
+        long sink = 0;
+        for (int size : sizes) {
+            long start = System.nanoTime();
+            Fixture fixture = new Fixture(size, seed);
+            System.out.printf("%n# %,d students, %,d courses (setup %.1f s)%n", size,
+                fixture.dataset.getCourses().size(), (System.nanoTime() - start) / 1e9);
+            try {
+                for (Case benchmark : cases()) {
+                    if (!filter.matcher(benchmark.name).find()) continue;
+                    
+                    for (int i = 0; i < warmup; i++) {
+                        sink += iterate(benchmark, fixture, iterationNanos)[1];
+                    }
+                    double[] scores = new double[iterations];
+                    for (int i = 0; i < iterations; i++) {
+                        long[] result = iterate(benchmark, fixture, iterationNanos);
+                        scores[i] = (double) result[0] / result[2];
+                        sink += result[1];
+                    }
+                    Result result = new Result(scores);
+                    System.out.printf("%-28s %14.1f +- %10.1f ns/op%n", benchmark.name, result.mean, result.error);
+                    write(json, benchmark.name, size, warmup, iterationNanos, result, scores);
+                }
+            } finally {
+                fixture.close();
+            }
+        }
+        json.endArray();
+        Files.write(output, json.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println("\nResults written to " + output.toAbsolutePath());
+        consume(sink);
+    }
+    
+    // Best-of-N timing for the standalone benchmarks: runs the pass warmupRounds times,
+    // then returns the fastest of measuredRounds timed runs in nanoseconds
+    static long bestOf(int warmupRounds, int measuredRounds, Supplier<?> pass) {
+        long sink = 0;
+        for (int i = 0; i < warmupRounds; i++) {
+            sink += pass.get().hashCode();
+        }
+        
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < measuredRounds; i++) {
+            long start = System.nanoTime();
+            sink += pass.get().hashCode();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        consume(sink);
+        return best;
+    }
+    
+    static void consume(long value) {
+        blackhole = value;
+    }
+    
+    // Repeats the operation until the iteration time is used up: {elapsed ns, sink, operations}
+    private static long[] iterate(Case benchmark, Fixture fixture, long iterationNanos) throws Exception {
+        long sink = 0;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += benchmark.operation.run(fixture);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {elapsed, sink, operations};
+    }
+    
+    private static final class Result {
+        final double mean;
+        final double error;
+        
+        Result(double[] scores) {
+            double sum = 0;
+            for (double score : scores) sum += score;
+            mean = sum / scores.length;
+            
+            if (scores.length < 2) {
+                error = Double.NaN;
+                return;
+            }
+            double squares = 0;
+            for (double score : scores) squares += (score - mean) * (score - mean);
+            double deviation = Math.sqrt(squares / (scores.length - 1));
+            int freedom = scores.length - 1;
+            double t = freedom <= T_999.length ? T_999[freedom - 1] : 3.291;
+            error = t * deviation / Math.sqrt(scores.length);
+        }
+    }
+    
+    private static void write(JsonWriter json, String name, int size, int warmup, long iterationNanos,
+                              Result result, double[] scores) {
+        json.beginObject()
+            .name("jmhVersion").value("n/a")
+            .name("benchmark").value("edu.ccrm.bench." + name)
+            .name("mode").value("avgt")
+            .name("threads").value(1)
+            .name("forks").value(0)
+            .name("jdkVersion").value(System.getProperty("java.version"))
+            .name("vmName").value(System.getProperty("java.vm.name"))
+            .name("warmupIterations").value(warmup)
+            .name("warmupTime").value(iterationNanos / 1_000_000 + " ms")
+            .name("measurementIterations").value(scores.length)
+            .name("measurementTime").value(iterationNanos / 1_000_000 + " ms")
+            .name("params").beginObject()
+                .name("records").value(String.valueOf(size))
+            .endObject()
+            .name("primaryMetric").beginObject()
+                .name("score").value(result.mean)
+                .name("scoreError").value(result.error)
+                .name("scoreConfidence").beginArray()
+                    .value(result.mean - result.error)
+                    .value(result.mean + result.error)
+                .endArray()
+                .name("scoreUnit").value("ns/op")
+                .name("rawData").beginArray().beginArray();
+        for (double score : scores) {
+            json.value(score);
+        }
+        json.endArray().endArray()
+            .endObject()
+            .endObject();
+    }
+}
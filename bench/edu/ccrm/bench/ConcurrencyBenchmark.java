@@ -0,0 +1,124 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stress test and throughput table for concurrent enroll / grade / unenroll traffic.
+// After each run the invariants are checked: the per-semester credit limit holds and the
+// ledger matches the enrolled courses for every student,
+// Student and the enrollment store agree, and cached GPAs match the recorded grades.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.ConcurrencyBenchmark [students] [opsPerThread]
+public class ConcurrencyBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int COURSE_COUNT = 200;
+    private static final int MAX_CREDITS = 20;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        
+        System.out.printf("%-8s %14s %12s %s%n", "threads", "ops/sec", "rejected", "invariants");
+        for (int threads : THREAD_COUNTS) {
+            run(threads, studentCount, opsPerThread);
+        }
+    }
+    
+    private static void run(int threads, int studentCount, int opsPerThread) throws Exception {
+        StudentService service = new StudentService();
+        service.enableLiveLeaderboard();
+        for (int i = 0; i < studentCount; i++) {
+            service.save(new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com"));
+        }
+        
+        Course[] courses = new Course[COURSE_COUNT];
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            courses[i] = new Course.Builder("C" + i, "Course " + i)
+                .credits(1 + i % 4)
+                .semester(Semester.values()[i % 3])
+                .department("Dept" + i % 10)
+                .build();
+        }
+        
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        
+        for (int t = 0; t < threads; t++) {
+            long seed = 1000L + t;
+            workers.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                Grade[] grades = Grade.values();
+                start.await();
+                
+                for (int i = 0; i < opsPerThread; i++) {
+                    // A small hot set of students keeps the same stripes contended
+                    String studentId = "S" + (random.nextInt(4) == 0 ? random.nextInt(16) : random.nextInt(studentCount));
+                    Course course = courses[random.nextInt(COURSE_COUNT)];
+                    int op = random.nextInt(10);
+                    
+                    if (op < 5) {
+                        try {
+                            service.enrollStudent(studentId, course, MAX_CREDITS);
+                        } catch (MaxCreditLimitExceededException e) {
+                            rejected.incrementAndGet();
+                        }
+                    } else if (op < 8) {
+                        service.assignGrade(studentId, course.getCode(), grades[random.nextInt(grades.length)]);
+                    } else {
+                        service.unenrollStudent(studentId, course);
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        double opsPerSecond = (double) threads * opsPerThread * 1e9 / elapsed;
+        System.out.printf("%-8d %,14.0f %,12d %s%n", threads, opsPerSecond, rejected.get(), verify(service, courses));
+    }
+    
+    private static String verify(StudentService service, Course[] courses) throws Exception {
+        EnrollmentService enrollments = service.getEnrollments();
+        
+        for (Student student : service.findAll()) {
+            Set<String> enrolled = student.getEnrolledCourses();
+            int[] expectedCredits = new int[Semester.values().length];
+            for (String code : enrolled) {
+                Course course = courses[Integer.parseInt(code.substring(1))];
+                expectedCredits[course.getSemester().ordinal()] += course.getCredits();
+            }
+            for (Semester semester : Semester.values()) {
+                int credits = student.getCreditsForSemester(semester);
+                if (credits > MAX_CREDITS) {
+                    return "FAILED: credit limit exceeded for " + student.getId();
+                }
+                if (credits != expectedCredits[semester.ordinal()]) {
+                    return "FAILED: credit ledger out of sync for " + student.getId();
+                }
+            }
+            if (enrollments.getEnrollmentsForStudent(student.getId()).size() != enrolled.size()) {
+                return "FAILED: enrollment store out of sync for " + student.getId();
+            }
+            
+            Map<String, Grade> grades = student.getCourseGrades();
+            double expected = grades.isEmpty() ? 0.0
+                : grades.values().stream().mapToDouble(Grade::getGradePoint).sum() / grades.size();
+            if (Math.abs(expected - student.calculateGPA()) > 1e-9) {
+                return "FAILED: cached GPA drifted for " + student.getId();
+            }
+        }
+        return "ok";
+    }
+}
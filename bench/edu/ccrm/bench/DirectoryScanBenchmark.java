@@ -0,0 +1,70 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.util.FileUtils;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Sizes a generated tree of many small files three ways: the previous Files.walk +
+// Files.size pass, a cold parallel scan, and a warm scan served from the mtime cache.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.DirectoryScanBenchmark [directories] [filesPerDirectory]
+public class DirectoryScanBenchmark {
+    public static void main(String[] args) throws Exception {
+        int directories = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int filesPerDirectory = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+        
+        Path root = Files.createTempDirectory("ccrm-scan");
+        try {
+            byte[] content = new byte[100];
+            for (int d = 0; d < directories; d++) {
+                Path directory = Files.createDirectories(root.resolve("backup_" + d).resolve("data"));
+                for (int f = 0; f < filesPerDirectory; f++) {
+                    Files.write(directory.resolve("file" + f + ".csv"), content);
+                }
+            }
+            System.out.printf("%,d directories, %,d files%n", directories * 2, directories * filesPerDirectory);
+            
+            long start = System.nanoTime();
+            long walked = walkSize(root);
+            report("Files.walk (previous)", start, walked);
+            
+            FileUtils.clearScanCache();
+            start = System.nanoTime();
+            long cold = FileUtils.scanWriteOnce(root).getTotalSize();
+            report("parallel scan (cold)", start, cold);
+            
+            start = System.nanoTime();
+            long warm = FileUtils.scanWriteOnce(root).getTotalSize();
+            report("parallel scan (cached)", start, warm);
+            
+            // Adding a file invalidates only its directory
+            Files.write(root.resolve("backup_0").resolve("data").resolve("extra.csv"), content);
+            start = System.nanoTime();
+            long changed = FileUtils.scanWriteOnce(root).getTotalSize();
+            report("after one new file", start, changed);
+            System.out.println(changed == walked + content.length ? "sizes OK" : "SIZE MISMATCH");
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    // What calculateDirectorySize did before the scanner
+    private static long walkSize(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+    
+    private static void report(String label, long start, long bytes) {
+        System.out.printf("%-24s %8.1f ms  %,d bytes%n", label, (System.nanoTime() - start) / 1e6, bytes);
+    }
+}
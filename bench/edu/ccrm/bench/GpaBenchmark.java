@@ -0,0 +1,63 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+
+// Compares the cached Student.calculateGPA() with the previous stream-based computation.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.GpaBenchmark [students]
+public class GpaBenchmark {
+    private static final int GRADES_PER_STUDENT = 5;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    
+    public static void main(String[] args) {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        
+        Random random = new Random(42);
+        Grade[] grades = Grade.values();
+        List<Student> students = new ArrayList<>(studentCount);
+        List<Map<String, Grade>> gradeMaps = new ArrayList<>(studentCount);
+        
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com");
+            for (int c = 0; c < GRADES_PER_STUDENT; c++) {
+                String course = "C" + random.nextInt(500);
+                student.enrollInCourse(course);
+                student.assignGrade(course, grades[random.nextInt(grades.length)]);
+            }
+            students.add(student);
+            gradeMaps.add(student.getCourseGrades());
+        }
+        
+        System.out.printf("GPA over %,d students (%d grades each)%n", studentCount, GRADES_PER_STUDENT);
+        report("stream (previous)", BenchmarkRunner.bestOf(WARMUP_ROUNDS, MEASURED_ROUNDS, () -> {
+            double sum = 0;
+            for (Map<String, Grade> courseGrades : gradeMaps) {
+                sum += streamGpa(courseGrades);
+            }
+            return sum;
+        }), studentCount);
+        report("cached", BenchmarkRunner.bestOf(WARMUP_ROUNDS, MEASURED_ROUNDS, () -> {
+            double sum = 0;
+            for (Student student : students) {
+                sum += student.calculateGPA();
+            }
+            return sum;
+        }), studentCount);
+    }
+    
+    // The computation Student.calculateGPA() used before the running totals were added
+    private static double streamGpa(Map<String, Grade> courseGrades) {
+        if (courseGrades.isEmpty()) return 0.0;
+        
+        double totalPoints = courseGrades.values().stream()
+            .mapToDouble(Grade::getGradePoint)
+            .sum();
+        
+        return totalPoints / courseGrades.size();
+    }
+    
+    private static void report(String label, long nanos, int operations) {
+        System.out.printf("%-20s %8.2f ms/pass %8.2f ns/op%n", label, nanos / 1e6, (double) nanos / operations);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseAnalytics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.GpaStatistics;
+import edu.ccrm.service.GradeStore;
+import java.lang.ref.Reference;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Compares the per-student grade maps with the columnar GradeStore: heap per grade (the
+// store is held in addition to the maps, not instead of them), and the GPA report and
+// course averages computed from each. Also times the parallel course
+// analytics pass and a cached refresh through CourseService.
+// Run with: java -Xmx3g -cp bin:bin-bench edu.ccrm.bench.GradeStoreBenchmark [students]
+public class GradeStoreBenchmark {
+    private static final int COURSES = 500;
+    private static final int GRADES_PER_STUDENT = 5;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    
+    public static void main(String[] args) {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        
+        Random random = new Random(42);
+        Grade[] grades = Grade.values();
+        Map<String, String> courseDepartments = new HashMap<>();
+        for (int c = 0; c < COURSES; c++) {
+            courseDepartments.put("C" + c, "Dept" + (c % 10));
+        }
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com");
+            for (int c = 0; c < GRADES_PER_STUDENT; c++) {
+                String course = "C" + random.nextInt(COURSES);
+                student.enrollInCourse(course);
+                student.assignGrade(course, grades[random.nextInt(grades.length)]);
+            }
+            students.add(student);
+        }
+        
+        long before = usedHeap();
+        List<Map<String, Grade>> maps = new ArrayList<>(studentCount);
+        long gradeCount = 0;
+        for (Student student : students) {
+            Map<String, Grade> copy = student.getCourseGrades();
+            gradeCount += copy.size();
+            maps.add(copy);
+        }
+        long mapBytes = usedHeap() - before;
+        
+        before = usedHeap();
+        GradeStore store = new GradeStore();
+        for (Student student : students) {
+            store.addStudent(student.getId());
+            student.forEachGrade((course, grade) -> store.put(student.getId(), course, grade));
+        }
+        long storeBytes = usedHeap() - before;
+        
+        System.out.printf("%,d students, %,d grades%n", studentCount, gradeCount);
+        System.out.printf("HashMap per student   %6.1f bytes/grade%n", (double) mapBytes / gradeCount);
+        System.out.printf("GradeStore (added)    %6.1f bytes/grade%n", (double) storeBytes / gradeCount);
+        System.out.printf("GradeStore (columns)  %6.1f bytes/grade%n", (double) store.getColumnBytes() / gradeCount);
+        
+        GpaStatistics statistics = new GpaStatistics(GpaStatistics.DEFAULT_BOUNDARIES, courseDepartments);
+        report("GPA report, students", measure(() -> statistics.compute(students).getMean()));
+        report("GPA report, columns", measure(() -> statistics.compute(store).getMean()));
+        report("course means, maps", measure(() -> mapAverages(maps).size()));
+        report("course means, columns", measure(() -> store.getCourseAverages().size()));
+        report("course analytics", measure(() -> new CourseAnalytics().compute(store).getGradeCount()));
+        CourseService courseService = new CourseService();
+        report("course analytics, cached", measure(() -> courseService.getCourseAnalytics(store).getGradeCount()));
+        Reference.reachabilityFence(maps); // the heap comparison above needs the copies alive until here
+    }
+    
+    private static Map<String, Double> mapAverages(List<Map<String, Grade>> maps) {
+        Map<String, double[]> totals = new HashMap<>();
+        for (Map<String, Grade> courseGrades : maps) {
+            courseGrades.forEach((course, grade) -> {
+                double[] sums = totals.computeIfAbsent(course, c -> new double[2]);
+                sums[0] += grade.getGradePoint();
+                sums[1]++;
+            });
+        }
+        Map<String, Double> averages = new HashMap<>();
+        totals.forEach((course, sums) -> averages.put(course, sums[0] / sums[1]));
+        return averages;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static long measure(Supplier<Object> pass) {
+        return BenchmarkRunner.bestOf(WARMUP_ROUNDS, MEASURED_ROUNDS, pass);
+    }
+    
+    private static void report(String label, long nanos) {
+        System.out.printf("%-24s %8.2f ms/pass%n", label, nanos / 1e6);
+    }
+}
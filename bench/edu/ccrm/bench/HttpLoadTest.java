@@ -0,0 +1,246 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+import edu.ccrm.http.ApiServer;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.ThreadPools;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load test for the HTTP API over localhost. An ApiServer on an ephemeral port is loaded
+// with a SyntheticDataset, and --concurrency simulated clients each keep one request in
+// flight on a shared java.net.http client (closed loop: a client sends its next request
+// when the previous answer arrives, so latency is per request, not against a schedule).
+// Operations:
+// - student: GET /api/students/{id}
+// - search: GET /api/students?name=
+// - course: GET /api/courses/{code}
+// - report: top 10 or the GPA report
+// - enroll: POST /api/enrollments, or DELETE when already enrolled
+// Requests carry the server's bearer token. Client and server share the machine, so the
+// numbers are a floor for a dedicated server.
+// Run with: java -Xmx3g -cp bin:bin-bench edu.ccrm.bench.HttpLoadTest [--students 100000]
+//           [--concurrency 256] [--seconds 20] [--warmup 5]
+//           [--mix student=50,search=20,course=15,report=5,enroll=10] [--seed 42]
+public class HttpLoadTest {
+    private enum Operation { STUDENT, SEARCH, COURSE, REPORT, ENROLL }
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = 100_000;
+        int concurrency = 256;
+        int seconds = 20;
+        int warmup = 5;
+        long seed = SyntheticDataset.DEFAULT_SEED;
+        int[] mix = {50, 20, 15, 5, 10};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--students":
+                    studentCount = Integer.parseInt(value);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--mix":
+                    mix = parseMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        
+        long start = System.nanoTime();
+        SyntheticDataset dataset = SyntheticDataset.generate(studentCount, seed);
+        StudentService students = new StudentService();
+        students.enableLiveLeaderboard();
+        CourseService courses = new CourseService();
+        dataset.loadInto(students, courses);
+        System.out.printf("Loaded %,d students and %,d courses in %.1f s%n", studentCount,
+            dataset.getCourses().size(), (System.nanoTime() - start) / 1e9);
+        
+        try (ApiServer server = new ApiServer(students, courses, AppConfig.getInstance(), 0)) {
+            server.start();
+            String base = server.getBaseUrl();
+            System.out.printf("Server on %s (%s), %d clients for %d s (+%d s warmup), mix %s%n", base,
+                ThreadPools.virtualThreadsAvailable() ? "virtual threads"
+                    : AppConfig.getInstance().getHttpThreads() + " server threads",
+                concurrency, seconds, warmup, describe(mix));
+            run(dataset, base, server.getToken(), concurrency, seconds, warmup, seed, mix);
+        }
+    }
+    
+    private static void run(SyntheticDataset dataset, String base, String token, int concurrency, int seconds,
+                            int warmup, long seed, int[] mix) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+        LongAdder clientErrors = new LongAdder();
+        LongAdder serverErrors = new LongAdder();
+        LongAdder failures = new LongAdder();
+        
+        long begin = System.nanoTime();
+        long measureFrom = begin + TimeUnit.SECONDS.toNanos(warmup);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        
+        for (int c = 0; c < concurrency; c++) {
+            Client user = new Client(dataset, base, "Bearer " + token, client, new SplittableRandom(seed + 1 + c), mix);
+            user.next(deadline, () -> finished.countDown(), (operation, sentAt, status, error) -> {
+                if (error != null) {
+                    failures.increment();
+                } else if (status >= 500) {
+                    serverErrors.increment();
+                } else if (status >= 400 && status != 404 && status != 409) {
+                    clientErrors.increment(); // 404 and 409 are expected answers under a random mix
+                }
+                if (sentAt - measureFrom >= 0) {
+                    latencies.get(operation).record(System.nanoTime() - sentAt);
+                }
+            });
+        }
+        finished.await();
+        double elapsed = (System.nanoTime() - measureFrom) / 1e9;
+        
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %10s %10s%n",
+            "op", "count", "req/s", "mean ms", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            total += histogram.getCount();
+            System.out.printf("%-8s %10d %10.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                operation.name().toLowerCase(), histogram.getCount(), histogram.getCount() / elapsed,
+                histogram.getMean() / 1e6, histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6,
+                histogram.percentile(99.9) / 1e6, histogram.getMax() / 1e6);
+        }
+        System.out.printf("%ntotal    %10d %10.0f req/s; %d failed, %d 5xx, %d unexpected 4xx%n", total,
+            total / elapsed, failures.sum(), serverErrors.sum(), clientErrors.sum());
+    }
+    
+    @FunctionalInterface
+    private interface Recorder {
+        void record(Operation operation, long sentAt, int status, Throwable error);
+    }
+    
+    // One simulated user. Its requests are chained, so the random stream is only ever
+    // touched by one callback at a time.
+    private static final class Client {
+        private final SyntheticDataset dataset;
+        private final String base;
+        private final String authorization;
+        private final HttpClient http;
+        private final SplittableRandom random;
+        private final int[] weights;
+        private final int totalWeight;
+        
+        Client(SyntheticDataset dataset, String base, String authorization, HttpClient http,
+               SplittableRandom random, int[] weights) {
+            this.dataset = dataset;
+            this.base = base;
+            this.authorization = authorization;
+            this.http = http;
+            this.random = random;
+            this.weights = weights;
+            this.totalWeight = Arrays.stream(weights).sum();
+        }
+        
+        void next(long deadline, Runnable done, Recorder recorder) {
+            if (System.nanoTime() - deadline >= 0) {
+                done.run();
+                return;
+            }
+            Operation operation = pick();
+            HttpRequest request = request(operation);
+            long sentAt = System.nanoTime();
+            http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                recorder.record(operation, sentAt, response != null ? response.statusCode() : 0, error);
+                next(deadline, done, recorder);
+            });
+        }
+        
+        private Operation pick() {
+            int choice = random.nextInt(totalWeight);
+            for (int i = 0; i < weights.length; i++) {
+                choice -= weights[i];
+                if (choice < 0) return Operation.values()[i];
+            }
+            return Operation.ENROLL;
+        }
+        
+        private HttpRequest request(Operation operation) {
+            Student student = dataset.getStudents().get(random.nextInt(dataset.getStudents().size()));
+            switch (operation) {
+                case STUDENT:
+                    return get("/api/students/" + encode(student.getId()));
+                case SEARCH:
+                    return get("/api/students?limit=20&name=" + encode(student.getName().getLastName()));
+                case COURSE:
+                    return get("/api/courses/" + encode(dataset.randomCourse(random).getCode()));
+                case REPORT:
+                    return get(random.nextBoolean() ? "/api/reports/top?n=10" : "/api/reports/gpa");
+                default:
+                    Course course = dataset.randomCourse(random);
+                    String form = "studentId=" + encode(student.getId()) + "&courseCode=" + encode(course.getCode());
+                    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + "/api/enrollments"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .header("Authorization", authorization);
+                    // The same objects back the server, so this is the live enrollment state
+                    return student.isEnrolledIn(course.getCode())
+                        ? builder.method("DELETE", HttpRequest.BodyPublishers.ofString(form)).build()
+                        : builder.POST(HttpRequest.BodyPublishers.ofString(form)).build();
+            }
+        }
+        
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path)).header("Authorization", authorization).GET().build();
+        }
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    // "student=50,search=20"; operations left out get weight 0
+    private static int[] parseMix(String value) {
+        int[] weights = new int[Operation.values().length];
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            weights[Operation.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        return weights;
+    }
+    
+    private static String describe(int[] weights) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Operation operation : Operation.values()) {
+            joiner.add(operation.name().toLowerCase() + "=" + weights[operation.ordinal()]);
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.DurableStore;
+import edu.ccrm.io.FsyncPolicy;
+import edu.ccrm.service.*;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+// Mutation throughput with the write-ahead log under each fsync policy, followed by a
+// restart from the journal (and from a compacted snapshot) that must reproduce the state.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.JournalBenchmark [threads] [opsPerThread]
+public class JournalBenchmark {
+    private static final int STUDENTS = 2_000;
+    private static final int COURSES = 40;
+    private static final int MAX_CREDITS = 1_000;
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        
+        System.out.printf("%d threads x %,d mutations%n", threads, opsPerThread);
+        System.out.printf("%-8s %12s %10s %14s %12s %12s%n",
+            "policy", "ops/sec", "fsyncs", "records/fsync", "replay ms", "state");
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            run(policy, threads, opsPerThread);
+        }
+    }
+    
+    private static void run(FsyncPolicy policy, int threads, int opsPerThread) throws Exception {
+        Path directory = Files.createTempDirectory("ccrm-journal");
+        try {
+            StudentService students = new StudentService();
+            CourseService courses = new CourseService();
+            DurableStore store = DurableStore.open(directory, policy, Long.MAX_VALUE, students, courses);
+            List<Course> catalog = populate(students, courses);
+            long setupRecords = store.getRecordCount();
+            long setupSyncs = store.getSyncCount();
+            
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures.add(pool.submit(() -> {
+                    mutate(students, catalog, new Random(seed), opsPerThread);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            pool.shutdown();
+            
+            long records = store.getRecordCount() - setupRecords;
+            long syncs = store.getSyncCount() - setupSyncs;
+            Map<String, String> expected = fingerprint(students);
+            store.close();
+            
+            // Restart from the log, then compact and restart from the snapshot
+            long replayStart = System.nanoTime();
+            StudentService recovered = new StudentService();
+            DurableStore reopened = DurableStore.open(directory, policy, Long.MAX_VALUE, recovered, new CourseService());
+            long replayNanos = System.nanoTime() - replayStart;
+            boolean logMatches = expected.equals(fingerprint(recovered));
+            reopened.compact();
+            reopened.close();
+            
+            StudentService fromSnapshot = new StudentService();
+            DurableStore.open(directory, policy, Long.MAX_VALUE, fromSnapshot, new CourseService()).close();
+            boolean snapshotMatches = expected.equals(fingerprint(fromSnapshot));
+            
+            System.out.printf("%-8s %,12.0f %,10d %14s %12.1f %12s%n", policy,
+                threads * (double) opsPerThread / (elapsed / 1e9), syncs,
+                syncs == 0 ? "-" : String.format("%.1f", (double) records / syncs),
+                replayNanos / 1e6, logMatches && snapshotMatches ? "OK" : "MISMATCH");
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+    
+    private static List<Course> populate(StudentService students, CourseService courses) throws IOException {
+        List<Course> catalog = new ArrayList<>();
+        Semester[] semesters = Semester.values();
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course.Builder("C" + c, "Course " + c)
+                .credits(3)
+                .semester(semesters[c % semesters.length])
+                .department("Dept" + (c % 5))
+                .build();
+            courses.save(course);
+            catalog.add(course);
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            students.save(new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com"));
+        }
+        return catalog;
+    }
+    
+    // Mostly grades, with enrollments and drops mixed in
+    private static void mutate(StudentService students, List<Course> catalog, Random random, int ops)
+            throws MaxCreditLimitExceededException {
+        Grade[] grades = Grade.values();
+        for (int i = 0; i < ops; i++) {
+            String studentId = "S" + random.nextInt(STUDENTS);
+            Course course = catalog.get(random.nextInt(catalog.size()));
+            int kind = random.nextInt(10);
+            if (kind < 3) {
+                students.enrollStudent(studentId, course, MAX_CREDITS);
+            } else if (kind < 4) {
+                students.unenrollStudent(studentId, course);
+            } else {
+                students.enrollStudent(studentId, course, MAX_CREDITS);
+                students.assignGrade(studentId, course.getCode(), grades[random.nextInt(grades.length)]);
+            }
+        }
+    }
+    
+    private static Map<String, String> fingerprint(StudentService students) throws IOException {
+        Map<String, String> state = new TreeMap<>();
+        for (Student student : students.findAll()) {
+            state.put(student.getId(), new TreeMap<>(student.getCourseGrades()) + " "
+                + new TreeSet<>(student.getEnrolledCourses()) + " " + student.getTotalCredits());
+        }
+        return state;
+    }
+    
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
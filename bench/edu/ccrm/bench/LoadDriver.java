@@ -0,0 +1,243 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.GpaStatistics;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import edu.ccrm.util.ThreadPools;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays a mixed workload against services loaded with a SyntheticDataset:
+// - enroll: enroll in a popularity-weighted course, or drop it if already enrolled
+// - grade: grade one of the student's current courses
+// - search: findById or a name search
+// - report: top students, the GPA report or course analytics
+// With --rate the load is open-loop. Each worker keeps to a fixed schedule, and latency
+// is measured from when an operation was due, not from when it started. A slow
+// operation therefore also counts against the ones queued behind it (no coordinated
+// omission). With --rate 0 the workers run flat out. The first --warmup seconds run the
+// same workload but are left out of the results.
+// Run with: java -Xmx3g -cp bin:bin-bench edu.ccrm.bench.LoadDriver [--students 100000] [--rate 2000]
+//           [--seconds 30] [--warmup 5] [--threads 4] [--mix enroll=40,grade=30,search=25,report=5] [--seed 42]
+public class LoadDriver {
+    private enum Operation { ENROLL, GRADE, SEARCH, REPORT }
+    
+    private static final Grade[] GRADES = Grade.values();
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = 100_000;
+        double rate = 2000;
+        int seconds = 30;
+        int warmup = 5;
+        int threads = 4;
+        long seed = SyntheticDataset.DEFAULT_SEED;
+        int[] mix = {40, 30, 25, 5};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--students":
+                    studentCount = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--mix":
+                    mix = parseMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        
+        long start = System.nanoTime();
+        SyntheticDataset dataset = SyntheticDataset.generate(studentCount, seed);
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        dataset.loadInto(students, courses);
+        System.out.printf("Loaded %,d students and %,d courses in %.1f s%n", studentCount,
+            dataset.getCourses().size(), (System.nanoTime() - start) / 1e9);
+        System.out.printf("Running %s for %d s (+%d s warmup) on %d threads, mix %s%n",
+            rate > 0 ? String.format("%.0f ops/s", rate) : "flat out", seconds, warmup, threads, describe(mix));
+        
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+        LongAdder errors = new LongAdder();
+        int[] weights = mix;
+        long intervalNanos = rate > 0 ? (long) (threads * 1e9 / rate) : 0;
+        long begin = System.nanoTime();
+        long measureFrom = begin + TimeUnit.SECONDS.toNanos(warmup);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads, ThreadPools.daemonThreads("load"));
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long workerSeed = seed + 1 + t;
+            long offset = intervalNanos * t / threads;
+            workers.add(pool.submit(() -> {
+                Worker worker = new Worker(dataset, students, courses, new SplittableRandom(workerSeed));
+                long due = begin + offset;
+                while (true) {
+                    long now = System.nanoTime();
+                    if (intervalNanos > 0) {
+                        if (due - now > 0) {
+                            LockSupport.parkNanos(due - now);
+                            continue;
+                        }
+                        now = due;
+                        due += intervalNanos;
+                    }
+                    if (now - deadline >= 0) break;
+                    
+                    Operation operation = worker.pick(weights);
+                    try {
+                        worker.run(operation);
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    if (now - measureFrom >= 0) {
+                        latencies.get(operation).record(System.nanoTime() - now);
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        double elapsed = (System.nanoTime() - measureFrom) / 1e9;
+        
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %10s %10s%n",
+            "op", "count", "ops/s", "mean us", "p50 us", "p99 us", "p99.9 us", "max us");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            total += histogram.getCount();
+            System.out.printf("%-8s %10d %10.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                operation.name().toLowerCase(), histogram.getCount(), histogram.getCount() / elapsed,
+                histogram.getMean() / 1e3, histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3);
+        }
+        System.out.printf("%ntotal    %10d %10.0f ops/s, %d errors%n", total, total / elapsed, errors.sum());
+        if (rate > 0 && total / elapsed < rate * 0.95) {
+            System.out.println("Target rate not reached: the latencies above include time spent queued behind the schedule.");
+        }
+    }
+    
+    // One per thread, so the random stream and scratch state are never shared
+    private static final class Worker {
+        private final SyntheticDataset dataset;
+        private final StudentService students;
+        private final CourseService courses;
+        private final SplittableRandom random;
+        private final int maxCredits = AppConfig.getInstance().getMaxCreditsPerSemester();
+        private final GpaStatistics statistics = new GpaStatistics();
+        
+        Worker(SyntheticDataset dataset, StudentService students, CourseService courses, SplittableRandom random) {
+            this.dataset = dataset;
+            this.students = students;
+            this.courses = courses;
+            this.random = random;
+        }
+        
+        Operation pick(int[] weights) {
+            int total = 0;
+            for (int weight : weights) total += weight;
+            int choice = random.nextInt(total);
+            for (int i = 0; i < weights.length; i++) {
+                choice -= weights[i];
+                if (choice < 0) return Operation.values()[i];
+            }
+            return Operation.REPORT;
+        }
+        
+        void run(Operation operation) throws Exception {
+            Student student = randomStudent();
+            switch (operation) {
+                case ENROLL:
+                    Course course = dataset.randomCourse(random);
+                    if (student.isEnrolledIn(course.getCode())) {
+                        students.unenrollStudent(student.getId(), course);
+                    } else {
+                        try {
+                            students.enrollStudent(student.getId(), course, maxCredits);
+                        } catch (MaxCreditLimitExceededException e) {
+                            // a normal outcome under load, not an error
+                        }
+                    }
+                    break;
+                case GRADE:
+                    List<String> enrolled = new ArrayList<>(student.getEnrolledCourses());
+                    if (!enrolled.isEmpty()) {
+                        String code = enrolled.get(random.nextInt(enrolled.size()));
+                        students.assignGrade(student.getId(), code, GRADES[random.nextInt(GRADES.length)]);
+                    }
+                    break;
+                case SEARCH:
+                    if (random.nextBoolean()) {
+                        students.findById(student.getId());
+                    } else {
+                        students.filterBy("name", student.getName().getLastName());
+                    }
+                    break;
+                case REPORT:
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            students.getTopStudents(10);
+                            break;
+                        case 1:
+                            statistics.compute(students.getGradeStore());
+                            break;
+                        default:
+                            courses.getCourseAnalytics(students.getGradeStore());
+                    }
+                    break;
+            }
+        }
+        
+        private Student randomStudent() {
+            List<Student> all = dataset.getStudents();
+            return all.get(random.nextInt(all.size()));
+        }
+    }
+    
+    // "enroll=40,grade=30,search=25,report=5"; operations left out get weight 0
+    private static int[] parseMix(String value) {
+        int[] weights = new int[Operation.values().length];
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            weights[Operation.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        return weights;
+    }
+    
+    private static String describe(int[] weights) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Operation operation : Operation.values()) {
+            joiner.add(operation.name().toLowerCase() + "=" + weights[operation.ordinal()]);
+        }
+        return joiner.toString();
+    }
+}
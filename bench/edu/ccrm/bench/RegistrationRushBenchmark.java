@@ -0,0 +1,75 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.ThreadPools;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Simulates registration opening: many clients push enrollment requests through the
+// EnrollmentPipeline at once, then the outcome counts and p50/p99 latency are printed.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.RegistrationRushBenchmark [students] [requestsPerStudent] [clients]
+public class RegistrationRushBenchmark {
+    private static final int COURSE_COUNT = 500;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        for (int i = 0; i < studentCount; i++) {
+            students.save(new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com"));
+        }
+        for (int i = 0; i < COURSE_COUNT; i++) {
+            courses.save(new Course.Builder("C" + i, "Course " + i)
+                .credits(3 + i % 2)
+                .semester(Semester.values()[i % 3])
+                .department("Dept" + i % 10)
+                .build());
+        }
+        
+        System.out.printf("%,d requests from %d clients (virtual threads: %s)%n", 
+            (long) studentCount * perStudent, clients, ThreadPools.virtualThreadsAvailable());
+        
+        Map<EnrollmentPipeline.Outcome, Long> outcomes = new ConcurrentHashMap<>();
+        long begin = System.nanoTime();
+        
+        try (EnrollmentPipeline pipeline = new EnrollmentPipeline(students, courses)) {
+            ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+            List<Future<?>> submitted = new ArrayList<>();
+            
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                submitted.add(clientPool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(client);
+                    List<CompletableFuture<EnrollmentPipeline.Result>> pending = new ArrayList<>();
+                    for (int s = client; s < studentCount; s += clients) {
+                        for (int r = 0; r < perStudent; r++) {
+                            // Skewed course choice: the first 20 courses get half the traffic
+                            int course = random.nextBoolean() ? random.nextInt(20) : random.nextInt(COURSE_COUNT);
+                            pending.add(pipeline.submit("S" + s, "C" + course));
+                        }
+                    }
+                    for (CompletableFuture<EnrollmentPipeline.Result> future : pending) {
+                        outcomes.merge(future.join().getOutcome(), 1L, Long::sum);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : submitted) {
+                future.get();
+            }
+            clientPool.shutdown();
+            
+            long elapsed = System.nanoTime() - begin;
+            LatencyHistogram latency = pipeline.getLatency();
+            System.out.printf("Throughput: %,.0f requests/sec%n", latency.getCount() * 1e9 / elapsed);
+            System.out.printf("Latency p50: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, latency.getMax() / 1e6);
+        }
+        outcomes.forEach((outcome, count) -> System.out.printf("%-22s %,d%n", outcome, count));
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thousands of threads race for the seats of one hot course. Afterwards the seat counter,
+// roster and waitlist must add up exactly, and freed seats must go to the waitlist head.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.SeatContentionBenchmark [threads] [seats]
+public class SeatContentionBenchmark {
+    private static final long THREAD_STACK_SIZE = 256 * 1024;
+    private static final int DROPS = 10;
+    
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        
+        StudentService service = new StudentService();
+        for (int i = 0; i < threadCount; i++) {
+            service.save(new Student("S" + i, String.valueOf(i), new Name("First" + i, "Last" + i), "s" + i + "@mail.com"));
+        }
+        Course course = new Course.Builder("HOT101", "Hot Course")
+            .credits(3)
+            .semester(Semester.FALL)
+            .department("Computer Science")
+            .capacity(seats)
+            .build();
+        
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>(threadCount);
+        
+        for (int i = 0; i < threadCount; i++) {
+            String studentId = "S" + i;
+            Thread thread = new Thread(null, () -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    EnrollmentStatus status = service.enrollStudent(studentId, course, 20);
+                    if (status == EnrollmentStatus.ENROLLED) enrolled.incrementAndGet();
+                    if (status == EnrollmentStatus.WAITLISTED) waitlisted.incrementAndGet();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, "contender-" + i, THREAD_STACK_SIZE);
+            threads.add(thread);
+            thread.start();
+        }
+        
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        
+        System.out.printf("%,d threads competed for %d seats in %.1f ms%n", threadCount, seats, elapsed / 1e6);
+        System.out.printf("enrolled=%d waitlisted=%d seatsTaken=%d roster=%d waitlist=%d%n",
+            enrolled.get(), waitlisted.get(), course.getSeatsTaken(),
+            service.getHeadcount(course.getCode()), course.getWaitlistSize());
+        
+        boolean oversold = enrolled.get() != seats || course.getSeatsTaken() != seats
+            || service.getHeadcount(course.getCode()) != seats;
+        
+        // Dropping students must hand their seats to the first waitlisted students
+        List<String> waitlist = course.getWaitlist();
+        List<String> expectedPromotions = new ArrayList<>(waitlist.subList(0, Math.min(DROPS, waitlist.size())));
+        List<Enrollment> roster = service.getRoster(course.getCode());
+        for (int i = 0; i < DROPS && i < roster.size(); i++) {
+            service.unenrollStudent(roster.get(i).getStudentId(), course);
+        }
+        boolean promotedInOrder = true;
+        for (String studentId : expectedPromotions) {
+            promotedInOrder &= service.findById(studentId).getEnrolledCourses().contains(course.getCode());
+        }
+        
+        System.out.println("No overselling: " + (!oversold ? "ok" : "FAILED"));
+        System.out.println("Waitlist promotion after " + DROPS + " drops: " 
+            + (promotedInOrder && course.getSeatsTaken() == seats ? "ok" : "FAILED"));
+    }
+}
@@ -0,0 +1,102 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.service.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Writes a binary snapshot of a synthetic domain, loads it back from the memory mapping
+// and checks that every student's enrollments, grades and credits survived the trip.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.SnapshotBenchmark [students] [coursesPerStudent]
+public class SnapshotBenchmark {
+    private static final int COURSES = 500;
+    private static final int INSTRUCTORS = 50;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        Random random = new Random(42);
+        Semester[] semesters = Semester.values();
+        Grade[] grades = Grade.values();
+        
+        List<Instructor> instructors = new ArrayList<>();
+        for (int i = 0; i < INSTRUCTORS; i++) {
+            instructors.add(new Instructor("I" + i, new Name("Prof" + i, "Teacher"), "i" + i + "@mail.com", "Dept" + (i % 10)));
+        }
+        List<Course> courses = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course.Builder("C" + c, "Course " + c)
+                .credits(1 + c % 4)
+                .semester(semesters[c % semesters.length])
+                .department("Dept" + (c % 10))
+                .instructor("I" + (c % INSTRUCTORS))
+                .build();
+            courses.add(course);
+            instructors.get(c % INSTRUCTORS).assignCourse(course.getCode());
+        }
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("S" + i, String.valueOf(i), new Name("First" + (i % 5000), "Last" + i), "s" + i + "@mail.com");
+            for (int e = 0; e < perStudent; e++) {
+                Course course = courses.get(random.nextInt(COURSES));
+                student.enrollInCourse(course);
+                if (random.nextBoolean()) {
+                    student.assignGrade(course.getCode(), grades[random.nextInt(grades.length)]);
+                }
+            }
+            students.add(student);
+        }
+        
+        Path file = Files.createTempFile("ccrm", ".snap");
+        try {
+            long start = System.nanoTime();
+            BinarySnapshot.write(file, students, courses, instructors);
+            long writeNanos = System.nanoTime() - start;
+            long records = (long) studentCount * (1 + perStudent) + COURSES + INSTRUCTORS;
+            System.out.printf("%,d students, %,d records, snapshot %,d bytes (%.1f bytes/record)%n",
+                studentCount, records, Files.size(file), (double) Files.size(file) / records);
+            System.out.printf("write    %8.1f ms%n", writeNanos / 1e6);
+            
+            BinarySnapshot.Contents contents = null;
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                contents = BinarySnapshot.read(file);
+                System.out.printf("load #%d  %8.1f ms%n", round + 1, (System.nanoTime() - start) / 1e6);
+            }
+            
+            start = System.nanoTime();
+            StudentService studentService = new StudentService();
+            CourseService courseService = new CourseService();
+            courseService.saveAll(contents.getCourses());
+            studentService.restore(contents.getStudents());
+            System.out.printf("restore into services %8.1f ms%n", (System.nanoTime() - start) / 1e6);
+            
+            System.out.println("round trip: " + (matches(students, contents) ? "OK" : "MISMATCH"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private static boolean matches(List<Student> expected, BinarySnapshot.Contents contents) {
+        List<Student> actual = contents.getStudents();
+        if (actual.size() != expected.size() || contents.getInstructors().size() != INSTRUCTORS) return false;
+        
+        for (int i = 0; i < expected.size(); i++) {
+            Student a = expected.get(i);
+            Student b = actual.get(i);
+            if (!a.getId().equals(b.getId()) || !a.getName().equals(b.getName())
+                || !a.getEnrolledCourses().equals(b.getEnrolledCourses())
+                || !a.getCourseGrades().equals(b.getCourseGrades())
+                || a.getTotalCredits() != b.getTotalCredits()) {
+                return false;
+            }
+        }
+        int seats = 0;
+        for (Course course : contents.getCourses()) {
+            seats += course.getSeatsTaken();
+        }
+        return seats == expected.stream().mapToInt(Student::getEnrolledCourseCount).sum();
+    }
+}
@@ -0,0 +1,294 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Seeded synthetic data: the same sizes and seed always produce the same instructors,
+// courses, students, enrollments and grades, so benchmark runs are comparable.
+//
+// Distributions are shaped like a real registry rather than uniform:
+// - Course popularity is Zipf-like (s = 0.8), so a few courses are hot. The hot
+//   courses are scattered across departments.
+// - Each student takes 3-7 courses, 5 on average. Most courses carry 3 credits.
+// - A grade comes from marks: the student's ability, plus the course's difficulty,
+//   plus noise, mapped through Grade.fromMarks. About 15% of enrollments are still
+//   in progress and have no grade yet.
+//
+// Each student is derived from the seed and its own index alone, so millions of them
+// can be streamed to CSV without being held in memory.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.SyntheticDataset --students 1000000 [--courses 3000]
+//           [--instructors 600] [--seed 42] [--out generated]
+public class SyntheticDataset {
+    public static final long DEFAULT_SEED = 42L;
+    
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Mathematics", "Physics", "Chemistry", "Biology",
+        "Economics", "History", "Literature", "Philosophy", "Engineering"
+    };
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda",
+        "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+        "Thomas", "Sarah", "Charles", "Karen", "Aarav", "Priya", "Wei", "Mei", "Omar", "Fatima"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+        "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson",
+        "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Sharma", "Patel", "Chen", "Wang"
+    };
+    private static final int[] CREDIT_WEIGHTS = {0, 10, 15, 50, 25}; // by credits 0-4
+    private static final int[] LOAD_WEIGHTS = {1, 2, 4, 2, 1};       // 3-7 courses
+    private static final int MIN_LOAD = 3;
+    private static final double ZIPF_EXPONENT = 0.8;
+    private static final double IN_PROGRESS_SHARE = 0.15;
+    
+    private final Model model;
+    private final List<Student> students;
+    
+    private SyntheticDataset(Model model, List<Student> students) {
+        this.model = model;
+        this.students = students;
+    }
+    
+    // One course per 100 students (20 to 5000), one instructor per 5 courses
+    public static SyntheticDataset generate(int studentCount, long seed) {
+        int courseCount = defaultCourses(studentCount);
+        return generate(studentCount, courseCount, defaultInstructors(courseCount), seed);
+    }
+    
+    public static SyntheticDataset generate(int studentCount, int courseCount, int instructorCount, long seed) {
+        Model model = new Model(courseCount, instructorCount, seed);
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            students.add(model.student(i));
+        }
+        return new SyntheticDataset(model, students);
+    }
+    
+    static int defaultCourses(int studentCount) {
+        return Math.max(20, Math.min(5000, studentCount / 100));
+    }
+    
+    static int defaultInstructors(int courseCount) {
+        return Math.max(1, courseCount / 5);
+    }
+    
+    // Courses first, then students with their enrollments and grades already attached
+    public void loadInto(StudentService studentService, CourseService courseService) throws IOException {
+        courseService.saveAll(model.courses);
+        studentService.restore(students);
+    }
+    
+    public List<Instructor> getInstructors() { return model.instructors; }
+    public List<Course> getCourses() { return model.courses; }
+    public List<Student> getStudents() { return students; }
+    
+    // A course drawn with the same popularity skew the enrollments were generated with
+    public Course randomCourse(SplittableRandom random) {
+        return model.popularCourse(random);
+    }
+    
+    // Writes instructors.csv, courses.csv, students.csv and enrollments.csv, streaming
+    // one student at a time. courses.csv and students.csv use the importer's layout.
+    // The other two are for external tools; the CSV importer does not read them.
+    public static long writeCsv(Path directory, int studentCount, int courseCount, int instructorCount,
+                                long seed) throws IOException {
+        Model model = new Model(courseCount, instructorCount, seed);
+        Files.createDirectories(directory);
+        
+        try (Writer out = open(directory.resolve("instructors.csv"))) {
+            out.write("ID,Name,Email,Department\n");
+            for (Instructor instructor : model.instructors) {
+                out.write(instructor.getId() + "," + instructor.getName().getFullName() + ","
+                    + instructor.getEmail() + "," + instructor.getDepartment() + "\n");
+            }
+        }
+        try (Writer out = open(directory.resolve("courses.csv"))) {
+            out.write("Code,Title,Credits,Department,Semester,InstructorId\n");
+            for (Course course : model.courses) {
+                out.write(course.getCode() + "," + course.getTitle() + "," + course.getCredits() + ","
+                    + course.getDepartment() + "," + course.getSemester().name() + "," + course.getInstructorId() + "\n");
+            }
+        }
+        
+        long enrollments = 0;
+        StringBuilder row = new StringBuilder(128);
+        try (Writer studentsOut = open(directory.resolve("students.csv"));
+             Writer enrollmentsOut = open(directory.resolve("enrollments.csv"))) {
+            studentsOut.write("ID,RegNo,Name,Email,GPA\n");
+            enrollmentsOut.write("StudentId,CourseCode,Grade\n");
+            for (int i = 0; i < studentCount; i++) {
+                Student student = model.student(i);
+                row.setLength(0);
+                row.append(student.getId()).append(',').append(student.getRegNo()).append(',')
+                    .append(student.getName().getFullName()).append(',').append(student.getEmail()).append(',')
+                    .append(String.format("%.2f", student.calculateGPA())).append('\n');
+                studentsOut.append(row);
+                
+                Map<String, Grade> grades = student.getCourseGrades();
+                for (String code : student.getEnrolledCourses()) {
+                    Grade grade = grades.get(code);
+                    row.setLength(0);
+                    row.append(student.getId()).append(',').append(code).append(',')
+                        .append(grade == null ? "" : grade.name()).append('\n');
+                    enrollmentsOut.append(row);
+                    enrollments++;
+                }
+            }
+        }
+        return enrollments;
+    }
+    
+    private static Writer open(Path file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16);
+    }
+    
+    // Instructors and courses (small, built up front) plus what is needed to derive any student
+    private static final class Model {
+        final long seed;
+        final List<Instructor> instructors = new ArrayList<>();
+        final List<Course> courses = new ArrayList<>();
+        final double[] difficulty;    // marks added to every grade in the course
+        final double[] popularity;    // cumulative Zipf weights over popularityOrder
+        final int[] popularityOrder;  // course index by popularity rank
+        
+        Model(int courseCount, int instructorCount, long seed) {
+            this.seed = seed;
+            SplittableRandom random = new SplittableRandom(seed);
+            Semester[] semesters = Semester.values();
+            
+            for (int i = 0; i < instructorCount; i++) {
+                instructors.add(new Instructor(String.format("I%05d", i), randomName(random),
+                    "instructor" + i + "@ccrm.edu", DEPARTMENTS[i % DEPARTMENTS.length]));
+            }
+            
+            difficulty = new double[courseCount];
+            for (int c = 0; c < courseCount; c++) {
+                Instructor instructor = instructors.get(c % instructorCount);
+                Course course = new Course.Builder(String.format("C%05d", c), instructor.getDepartment() + " " + (100 + c))
+                    .credits(weighted(random, CREDIT_WEIGHTS))
+                    .semester(semesters[random.nextInt(semesters.length)])
+                    .department(instructor.getDepartment())
+                    .instructor(instructor.getId())
+                    .build();
+                courses.add(course);
+                instructor.assignCourse(course.getCode());
+                difficulty[c] = gaussian(random) * 6.0;
+            }
+            
+            popularityOrder = new int[courseCount];
+            for (int c = 0; c < courseCount; c++) popularityOrder[c] = c;
+            for (int c = courseCount - 1; c > 0; c--) {
+                int swap = random.nextInt(c + 1);
+                int held = popularityOrder[c];
+                popularityOrder[c] = popularityOrder[swap];
+                popularityOrder[swap] = held;
+            }
+            popularity = new double[courseCount];
+            double total = 0;
+            for (int rank = 0; rank < courseCount; rank++) {
+                total += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                popularity[rank] = total;
+            }
+        }
+        
+        int popularIndex(SplittableRandom random) {
+            double target = random.nextDouble() * popularity[popularity.length - 1];
+            int rank = Arrays.binarySearch(popularity, target);
+            if (rank < 0) rank = -rank - 1;
+            return popularityOrder[Math.min(rank, popularity.length - 1)];
+        }
+        
+        Course popularCourse(SplittableRandom random) {
+            return courses.get(popularIndex(random));
+        }
+        
+        Student student(int index) {
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+            Name name = randomName(random);
+            Student student = new Student(String.format("S%08d", index), String.valueOf(2_000_000 + index), name,
+                name.getFirstName().toLowerCase() + "." + name.getLastName().toLowerCase() + index + "@ccrm.edu");
+            
+            double ability = 72 + gaussian(random) * 10;
+            int load = Math.min(courses.size(), MIN_LOAD + weighted(random, LOAD_WEIGHTS));
+            for (int attempts = 0; student.getEnrolledCourseCount() < load && attempts < load * 4; attempts++) {
+                int c = popularIndex(random);
+                Course course = courses.get(c);
+                if (student.isEnrolledIn(course.getCode())) continue;
+                
+                student.enrollInCourse(course);
+                if (random.nextDouble() >= IN_PROGRESS_SHARE) {
+                    double marks = ability + difficulty[c] + gaussian(random) * 8;
+                    student.assignGrade(course.getCode(), Grade.fromMarks(marks));
+                }
+            }
+            return student;
+        }
+    }
+    
+    private static Name randomName(SplittableRandom random) {
+        return new Name(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+    }
+    
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) total += weight;
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) return i;
+        }
+        return weights.length - 1;
+    }
+    
+    // Box-Muller, since SplittableRandom has no nextGaussian before Java 17
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int students = 100_000;
+        int courses = -1;
+        int instructors = -1;
+        long seed = DEFAULT_SEED;
+        Path output = Paths.get("generated");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--students":
+                    students = Integer.parseInt(value);
+                    break;
+                case "--courses":
+                    courses = Integer.parseInt(value);
+                    break;
+                case "--instructors":
+                    instructors = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--out":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (courses < 0) courses = defaultCourses(students);
+        if (instructors < 0) instructors = defaultInstructors(courses);
+        
+        long start = System.nanoTime();
+        long enrollments = writeCsv(output, students, courses, instructors, seed);
+        System.out.printf("Wrote %,d students, %,d courses, %,d instructors, %,d enrollments to %s in %.1f s%n",
+            students, courses, instructors, enrollments, output.toAbsolutePath(), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.TranscriptJob;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+// Writes transcripts for a generated student body one-file-per-student and as zip
+// archives, on one thread and on the common pool, then deletes part of the output and
+// reruns to show that resuming only renders what is missing.
+// Run with: java -cp bin:bin-bench edu.ccrm.bench.TranscriptBenchmark [students] [coursesPerStudent]
+public class TranscriptBenchmark {
+    private static final int COURSES = 500;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        
+        Random random = new Random(42);
+        Semester[] semesters = Semester.values();
+        Grade[] grades = Grade.values();
+        
+        Map<String, Course> courses = new HashMap<>();
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course.Builder("C" + c, "Course " + c)
+                .credits(1 + c % 4)
+                .semester(semesters[c % semesters.length])
+                .department("Dept" + (c % 10))
+                .build();
+            courses.put(course.getCode(), course);
+        }
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("S" + i, String.valueOf(i), new Name("First" + (i % 5000), "Last" + i), "s" + i + "@mail.com");
+            for (int e = 0; e < perStudent; e++) {
+                Course course = courses.get("C" + random.nextInt(COURSES));
+                student.enrollInCourse(course);
+                student.assignGrade(course.getCode(), grades[random.nextInt(grades.length)]);
+            }
+            students.add(student);
+        }
+        System.out.printf("%d students, %d courses each, %d pool threads%n", studentCount, perStudent,
+            ForkJoinPool.commonPool().getParallelism());
+        
+        Path root = Files.createTempDirectory("ccrm-transcripts");
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            print("files, 1 thread", new TranscriptJob(root.resolve("serial"), single).writeFiles(students, courses));
+            Path files = root.resolve("files");
+            print("files, common pool", new TranscriptJob(files).writeFiles(students, courses));
+            print("archives, 1 thread", new TranscriptJob(root.resolve("serial-zip"), single)
+                .writeArchives(students, courses, TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE));
+            Path archives = root.resolve("archives");
+            print("archives, common pool", new TranscriptJob(archives)
+                .writeArchives(students, courses, TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE));
+            
+            // Simulate a crash partway through: drop every third output and run again
+            deleteEveryThird(files);
+            print("files, resumed", new TranscriptJob(files).writeFiles(students, courses));
+            deleteEveryThird(archives);
+            print("archives, resumed", new TranscriptJob(archives)
+                .writeArchives(students, courses, TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE));
+        } finally {
+            single.shutdown();
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static void deleteEveryThird(Path directory) throws Exception {
+        try (Stream<Path> paths = Files.list(directory)) {
+            List<Path> outputs = new ArrayList<>();
+            paths.sorted().forEach(outputs::add);
+            for (int i = 0; i < outputs.size(); i += 3) {
+                Files.delete(outputs.get(i));
+            }
+        }
+    }
+    
+    private static void print(String label, TranscriptJob.Report report) {
+        System.out.printf("%-24s %s%n", label, report);
+    }
+}
@@ -0,0 +1,59 @@
+package edu.ccrm.io;
+
+import java.util.Locale;
+import java.util.Random;
+
+// Formats GPA-like values to two decimals with CsvWriter.appendFixed2 and with
+// String.format, checking the outputs agree and reporting the best pass of each.
+// Lives in edu.ccrm.io because CsvWriter is package-private.
+// Run with: java -cp bin:bin-bench edu.ccrm.io.Fixed2Benchmark [values] [passes]
+public class Fixed2Benchmark {
+    private static volatile long blackhole;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        
+        Random random = new Random(42);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            // Every fourth value is a GPA sitting exactly on a half-cent, the case %.2f rounds up
+            values[i] = i % 4 == 0 ? (random.nextInt(400) * 10 + 5) / 1000.0 : random.nextDouble() * 4;
+        }
+        
+        StringBuilder out = new StringBuilder(32);
+        for (double value : values) {
+            out.setLength(0);
+            CsvWriter.appendFixed2(out, value);
+            String expected = String.format(Locale.ROOT, "%.2f", value);
+            if (!expected.contentEquals(out)) {
+                throw new AssertionError(value + ": " + out + " != " + expected);
+            }
+        }
+        System.out.printf("%d values, outputs match String.format%n", count);
+        
+        long appendBest = Long.MAX_VALUE;
+        long formatBest = Long.MAX_VALUE;
+        for (int pass = 0; pass < passes; pass++) {
+            long start = System.nanoTime();
+            long sink = 0;
+            for (double value : values) {
+                out.setLength(0);
+                CsvWriter.appendFixed2(out, value);
+                sink += out.length();
+            }
+            appendBest = Math.min(appendBest, System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            for (double value : values) {
+                out.setLength(0);
+                out.append(String.format(Locale.ROOT, "%.2f", value));
+                sink += out.length();
+            }
+            formatBest = Math.min(formatBest, System.nanoTime() - start);
+            blackhole += sink;
+        }
+        System.out.printf("appendFixed2   %8.1f ns/value%n", (double) appendBest / count);
+        System.out.printf("String.format  %8.1f ns/value%n", (double) formatBest / count);
+    }
+}
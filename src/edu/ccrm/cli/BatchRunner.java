@@ -0,0 +1,454 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.http.ApiServer;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportStats;
+import edu.ccrm.io.TranscriptJob;
+import edu.ccrm.service.*;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
+import edu.ccrm.util.ThreadPools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Non-interactive front end: runs one command from the command line, or a script of
+// commands, straight against the services with no prompts. Record input ("-" for stdin)
+// is streamed, so a file of any size runs in bounded memory. Results go to out as CSV
+// where they are tabular; progress and per-record problems go to err, so stdout can be
+// piped. A script stops at the first failing command.
+public class BatchRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    
+    private static final String STDIN = "-";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    
+    static final String USAGE = String.join("\n",
+        "Usage: java edu.ccrm.cli.CCRMApplication [command [args]]",
+        "With no command the interactive menu starts. Commands:",
+        "  import [--mapped]                        import data/students.csv and data/courses.csv",
+        "  import students|courses <file|->         import one CSV file (.gz allowed) or stdin",
+        "  enroll-batch <file|->                    enroll rows of StudentId,CourseCode",
+        "  grade-batch <file|->                     grade rows of StudentId,CourseCode,Grade (letter or marks)",
+        "  report top [n]|gpa|departments|analytics print a report as CSV",
+        "  export [--gzip]                          export students and courses to data/",
+        "  backup                                   snapshot the services and take an incremental backup",
+        "  transcripts [--zip]                      write every transcript to " + AppConfig.getInstance().getTranscriptDirectory(),
+        "  stats                                    print the service metrics as CSV",
+        "  serve [port]                             run the HTTP API (default port " + AppConfig.getInstance().getHttpPort() + ") until Ctrl-C",
+        "  script <file|->                          run commands, one per line (# starts a comment)",
+        "  -                                        same as: script -");
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final ImportExportService ioService;
+    private final AppConfig config;
+    private final PrintStream out;
+    private final PrintStream err;
+    
+    public BatchRunner(StudentService studentService, CourseService courseService, ImportExportService ioService,
+                       AppConfig config, PrintStream out, PrintStream err) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.ioService = ioService;
+        this.config = config;
+        this.out = out;
+        this.err = err;
+    }
+    
+    // Runs one command and returns the process exit code
+    public int run(String... args) {
+        try {
+            execute(args);
+            return EXIT_OK;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (IOException | RuntimeException e) {
+            err.println(commandName(args) + " failed: " + e.getMessage());
+            return EXIT_FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println(commandName(args) + " interrupted");
+            return EXIT_FAILED;
+        }
+    }
+    
+    private void execute(String[] args) throws IOException, InterruptedException {
+        switch (args[0]) {
+            case "import":
+                importData(args);
+                break;
+            case "enroll-batch":
+                enrollBatch(argument(args, 1, "input"));
+                break;
+            case "grade-batch":
+                gradeBatch(argument(args, 1, "input"));
+                break;
+            case "report":
+                report(args);
+                break;
+            case "export":
+                ioService.exportData(studentService.findAll(), courseService.findAll(), hasFlag(args, "--gzip"));
+                break;
+            case "backup":
+                err.println("Student snapshot: " + studentService.writeSnapshot(courseService.findAll()));
+                err.println("Course snapshot: " + courseService.writeSnapshot());
+                err.println("Backup " + ioService.createBackup());
+                break;
+            case "transcripts":
+                transcripts(hasFlag(args, "--zip"));
+                break;
+            case "stats":
+                stats();
+                break;
+            case "serve":
+                serve(args.length > 1 ? Integer.parseInt(args[1]) : config.getHttpPort());
+                break;
+            case "script":
+                script(argument(args, 1, "script"));
+                break;
+            case STDIN:
+                script(STDIN);
+                break;
+            case "help":
+                out.println(USAGE);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+    }
+    
+    private void importData(String[] args) throws IOException {
+        if (args.length < 2 || args[1].startsWith("--")) {
+            List<ImportStats> results = ioService.importData(studentService, courseService, hasFlag(args, "--mapped"));
+            if (results.isEmpty()) err.println("No CSV files found in " + config.getDataDirectory());
+            results.forEach(err::println);
+            return;
+        }
+        
+        String source = argument(args, 2, "input");
+        try (BufferedReader reader = open(source)) {
+            switch (args[1]) {
+                case "students":
+                    err.println(ImportExportService.CSVHandler.importStudents(reader, studentService));
+                    break;
+                case "courses":
+                    err.println(ImportExportService.CSVHandler.importCourses(reader, courseService));
+                    break;
+                default:
+                    throw new IllegalArgumentException("import expects students or courses, not " + args[1]);
+            }
+        }
+    }
+    
+    // Requests go through the enrollment pipeline, which batches them by course and
+    // applies them on the worker pool; submit blocks while the pipeline is full, so the
+    // reader never runs far ahead of the workers
+    private void enrollBatch(String source) throws IOException, InterruptedException {
+        Map<EnrollmentPipeline.Outcome, LongAdder> outcomes = new EnumMap<>(EnrollmentPipeline.Outcome.class);
+        for (EnrollmentPipeline.Outcome outcome : EnrollmentPipeline.Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        
+        long[] counts = new long[2]; // {submitted, malformed}
+        try (EnrollmentPipeline pipeline = new EnrollmentPipeline(studentService, courseService);
+             BufferedReader reader = open(source)) {
+            forEachRecord(reader, 2, 2, (fields, lineNumber) -> {
+                if (fields == null) {
+                    err.println("line " + lineNumber + ": expected StudentId,CourseCode");
+                    counts[1]++;
+                    return;
+                }
+                counts[0]++;
+                pipeline.submit(fields[0], fields[1]).whenComplete((result, error) -> {
+                    if (error != null) {
+                        failed.increment();
+                        err.println(fields[0] + " -> " + fields[1] + ": " + error.getMessage());
+                        return;
+                    }
+                    outcomes.get(result.getOutcome()).increment();
+                    if (result.getOutcome() != EnrollmentPipeline.Outcome.ENROLLED) {
+                        err.println(result);
+                    }
+                });
+            });
+        }
+        
+        StringJoiner summary = new StringJoiner(", ");
+        outcomes.forEach((outcome, count) -> {
+            if (count.sum() > 0) summary.add(outcome.name().toLowerCase() + " " + count.sum());
+        });
+        if (failed.sum() > 0) summary.add("failed " + failed.sum());
+        if (counts[1] > 0) summary.add("malformed " + counts[1]);
+        printRate("enroll-batch", counts[0], start, summary.toString());
+    }
+    
+    // Grades are applied in input order, so a later row for the same enrollment wins. Rows
+    // with a blank grade are skipped, so an enrollment file with a Grade column feeds both
+    // enroll-batch and grade-batch.
+    private void gradeBatch(String source) throws IOException, InterruptedException {
+        long[] counts = new long[4]; // {graded, not enrolled, malformed, no grade}
+        long start = System.nanoTime();
+        try (BufferedReader reader = open(source)) {
+            forEachRecord(reader, 3, 2, (fields, lineNumber) -> {
+                if (fields != null && (fields[2] == null || fields[2].isEmpty())) {
+                    counts[3]++;
+                    return;
+                }
+                Grade grade = fields == null ? null : Grade.parse(fields[2]);
+                if (grade == null) {
+                    err.println("line " + lineNumber + ": expected StudentId,CourseCode,Grade");
+                    counts[2]++;
+                    return;
+                }
+                Student student = studentService.findById(fields[0]);
+                if (student == null || !student.isEnrolledIn(fields[1])) {
+                    err.println("line " + lineNumber + ": " + fields[0] + " is not enrolled in " + fields[1]);
+                    counts[1]++;
+                    return;
+                }
+                studentService.assignGrade(fields[0], fields[1], grade);
+                counts[0]++;
+            });
+        }
+        printRate("grade-batch", counts[0] + counts[1] + counts[2] + counts[3], start, "graded " + counts[0]
+            + ", not enrolled " + counts[1] + ", malformed " + counts[2] + ", no grade " + counts[3]);
+    }
+    
+    private void printRate(String command, long records, long start, String summary) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        err.printf("%s: %d records in %.2f s (%.0f/s): %s%n", command, records, seconds,
+            seconds > 0 ? records / seconds : 0.0, summary);
+    }
+    
+    private void report(String[] args) throws IOException {
+        String name = argument(args, 1, "report name");
+        switch (name) {
+            case "top":
+                int count = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+                out.println("Rank,ID,Name,GPA");
+                List<Student> top = studentService.getTopStudents(count);
+                for (int i = 0; i < top.size(); i++) {
+                    Student student = top.get(i);
+                    out.printf("%d,%s,%s,%.2f%n", i + 1, student.getId(), csv(student.getName().getFullName()),
+                        student.calculateGPA());
+                }
+                break;
+            case "gpa":
+                gpaReport();
+                break;
+            case "departments":
+                out.println("Department,Courses");
+                courseService.getCoursesByDepartment().forEach((department, courses) ->
+                    out.println(csv(department) + "," + courses));
+                break;
+            case "analytics":
+                analyticsReport();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown report: " + name);
+        }
+    }
+    
+    private void gpaReport() throws IOException {
+        Map<String, String> courseDepartments = new HashMap<>();
+        for (Course course : courseService.findAll()) {
+            courseDepartments.put(course.getCode(), course.getDepartment());
+        }
+        GpaStatistics.Report report = new GpaStatistics(GpaStatistics.DEFAULT_BOUNDARIES, courseDepartments)
+            .compute(studentService.getGradeStore());
+        
+        out.println("Department,MeanGradePoint,Grades,PassRate");
+        for (GpaStatistics.DepartmentSummary department : report.getDepartments().values()) {
+            out.printf("%s,%.2f,%d,%.3f%n", csv(department.getDepartment()), department.getMeanGradePoint(),
+                department.getGradeCount(), department.getPassRate());
+        }
+        err.printf("Mean GPA %.2f (min %.2f, max %.2f), median %.2f, 90th percentile %.2f%n",
+            report.getMean(), report.getMin(), report.getMax(), report.percentile(50), report.percentile(90));
+    }
+    
+    private void analyticsReport() throws IOException {
+        CourseAnalytics.Report report = courseService.getCourseAnalytics(studentService.getGradeStore());
+        List<Course> courses = courseService.findAll();
+        courses.sort(Comparator.comparing(Course::getCode));
+        
+        StringBuilder header = new StringBuilder("Course,Grades,MeanGradePoint,FailRate");
+        for (Grade grade : Grade.values()) {
+            header.append(',').append(grade);
+        }
+        out.println(header);
+        for (Course course : courses) {
+            CourseAnalytics.CourseSummary summary = report.get(course.getCode());
+            StringBuilder line = new StringBuilder(csv(course.getCode()));
+            if (summary == null) {
+                line.append(",0,,");
+                for (int i = 0; i < Grade.values().length; i++) line.append(",0");
+            } else {
+                line.append(',').append(summary.getGradeCount())
+                    .append(String.format(",%.2f,%.3f", summary.getMeanGradePoint(), summary.getFailRate()));
+                for (Grade grade : Grade.values()) line.append(',').append(summary.getCount(grade));
+            }
+            out.println(line);
+        }
+    }
+    
+    private void transcripts(boolean zip) throws IOException {
+        Map<String, Course> courses = new HashMap<>();
+        for (Course course : courseService.findAll()) {
+            courses.put(course.getCode(), course);
+        }
+        TranscriptJob job = new TranscriptJob(config.getTranscriptDirectory());
+        TranscriptJob.Report report = zip
+            ? job.writeArchives(studentService.findAll(), courses, TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE)
+            : job.writeFiles(studentService.findAll(), courses);
+        err.println("Transcripts in " + config.getTranscriptDirectory().toAbsolutePath() + ": " + report);
+    }
+    
+    private void stats() {
+        out.println("Operation,Calls,Errors,TotalMillis,MeanMicros,P50Micros,P99Micros,MaxMicros");
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getCount() == 0) continue;
+            out.printf("%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n", operation.getName(), operation.getCount(),
+                operation.getErrors(), operation.getTotalMillis(), operation.getMeanMicros(),
+                operation.getP50Micros(), operation.getP99Micros(), operation.getMaxMicros());
+        }
+    }
+    
+    // Serves until the JVM is asked to stop (Ctrl-C, SIGTERM). The shutdown hook then waits
+    // for this thread to finish, so the caller still gets to persist the session.
+    private void serve(int port) throws IOException, InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        try (ApiServer server = new ApiServer(studentService, courseService, config, port)) {
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                stopped.countDown();
+                try {
+                    caller.join(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "http-shutdown"));
+            err.println("Serving the API on " + server.getBaseUrl() + "/api/ ("
+                + (ThreadPools.virtualThreadsAvailable() ? "virtual threads" : config.getHttpThreads() + " threads")
+                + "); Ctrl-C to stop");
+            if (config.getHttpToken() == null) {
+                err.println("API token for this run (send as \"Authorization: Bearer <token>\"): " + server.getToken());
+            }
+            stopped.await();
+        }
+        err.println("API stopped");
+    }
+    
+    // Each line is a command with whitespace-separated arguments
+    private void script(String source) throws IOException, InterruptedException {
+        try (BufferedReader reader = open(source)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String command = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (command.isEmpty()) continue;
+                
+                String[] args = command.split("\\s+");
+                if (args[0].equals("script") || args[0].equals(STDIN) || args[0].equals("serve")) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": " + args[0] + " cannot run from a script");
+                }
+                try {
+                    execute(args);
+                } catch (IOException | RuntimeException e) {
+                    throw new IOException("line " + lineNumber + " (" + args[0] + "): " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RecordHandler {
+        // fields is null when the record lacks a required field
+        void accept(String[] fields, long lineNumber) throws IOException, InterruptedException;
+    }
+    
+    // Splits comma-separated records into width trimmed fields; missing trailing fields are
+    // null. Records whose first required fields are not all present are passed as null.
+    // Blank lines, # comments and a first line starting with "StudentId" or "ID" are
+    // skipped; extra fields are ignored.
+    private static void forEachRecord(BufferedReader reader, int width, int required, RecordHandler handler)
+            throws IOException, InterruptedException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            
+            String[] fields = new String[width];
+            int start = 0;
+            int count = 0;
+            while (count < width && start <= line.length()) {
+                int comma = line.indexOf(',', start);
+                int end = comma < 0 ? line.length() : comma;
+                fields[count++] = line.substring(start, end).trim();
+                start = end + 1;
+            }
+            if (lineNumber == 1 && (fields[0].equalsIgnoreCase("StudentId") || fields[0].equalsIgnoreCase("ID"))) {
+                continue;
+            }
+            boolean complete = count >= required;
+            for (int i = 0; complete && i < required; i++) {
+                complete = !fields[i].isEmpty();
+            }
+            handler.accept(complete ? fields : null, lineNumber);
+        }
+    }
+    
+    // stdin is wrapped without taking ownership: closing the reader leaves System.in open
+    private static BufferedReader open(String source) throws IOException {
+        if (!source.equals(STDIN)) {
+            return ImportExportService.CSVHandler.openReader(Paths.get(source));
+        }
+        return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), READ_BUFFER_SIZE) {
+            @Override
+            public void close() {
+                // System.in stays open for later commands
+            }
+        };
+    }
+    
+    private static String commandName(String[] args) {
+        return args[0].equals(STDIN) ? "script" : args[0];
+    }
+    
+    private static String argument(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[0] + ": missing " + name);
+        }
+        return args[index];
+    }
+    
+    private static boolean hasFlag(String[] args, String flag) {
+        return Arrays.asList(args).subList(1, args.length).contains(flag);
+    }
+    
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
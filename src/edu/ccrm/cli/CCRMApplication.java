@@ -3,14 +3,31 @@ package edu.ccrm.cli;
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
 import edu.ccrm.service.*;
+import edu.ccrm.io.BackupManifest;
+import edu.ccrm.io.BackupStore;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.io.DurableStore;
+import edu.ccrm.io.FsyncPolicy;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportStats;
+import edu.ccrm.io.ParallelCopier;
+import edu.ccrm.io.TranscriptJob;
+import edu.ccrm.io.TranscriptRenderer;
 import edu.ccrm.util.*;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Scanner;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Comparator;
 
 public class CCRMApplication {
@@ -19,18 +36,88 @@ public class CCRMApplication {
     private final CourseService courseService;
     private final ImportExportService ioService;
     private final AppConfig config;
+    private DurableStore durableStore; // null unless durable storage is enabled
+    private final List<Instructor> instructors = new ArrayList<>();
+    private boolean dataRestored; // a restore replaced data/ on disk; don't overwrite it on exit
+    private final PrintStream status; // startup messages; stderr in batch mode so stdout stays clean
     
     public CCRMApplication() {
+        this(System.out);
+    }
+    
+    public CCRMApplication(PrintStream status) {
+        this.status = status;
         this.scanner = new Scanner(System.in);
         this.studentService = new StudentService();
         this.courseService = new CourseService();
         this.ioService = new ImportExportService();
         this.config = AppConfig.getInstance();
         
-        initializeTestData();
+        studentService.enableLiveLeaderboard();
+        studentService.setCourseCatalog(courseService);
+        if (config.isDurableStorageEnabled()) {
+            openDurableStore();
+        }
+        boolean restored = durableStore != null ? durableStore.getRecoveredRecords() > 0 : loadSnapshot();
+        if (!restored) {
+            initializeTestData();
+        }
+    }
+    
+    // The snapshot written on the last exit, if any, replaces the sample data
+    private boolean loadSnapshot() {
+        Path snapshotPath = config.getSnapshotPath();
+        if (!Files.exists(snapshotPath)) return false;
+        
+        try {
+            long start = System.nanoTime();
+            BinarySnapshot.Contents contents = BinarySnapshot.read(snapshotPath);
+            courseService.saveAll(contents.getCourses());
+            studentService.restore(contents.getStudents());
+            instructors.addAll(contents.getInstructors());
+            status.printf("Loaded %d records from %s in %.1f ms%n", contents.getEntityCount(),
+                snapshotPath, (System.nanoTime() - start) / 1e6);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not load snapshot, starting with sample data: " + e.getMessage());
+            return false;
+        }
     }
     
+    private void saveSnapshot() {
+        try {
+            BinarySnapshot.write(config.getSnapshotPath(), studentService.findAll(), studentService::getEnrollments,
+                courseService.findAll(), instructors);
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+    
+    // Restores the previous session from the journal; falls back to in-memory data on failure
+    private void openDurableStore() {
+        try {
+            durableStore = DurableStore.open(config.getJournalPath(), FsyncPolicy.valueOf(config.getFsyncPolicy()),
+                config.getCompactionThresholdBytes(), studentService, courseService);
+            status.println("Durable storage: " + config.getJournalPath() + " ("
+                + durableStore.getRecoveredRecords() + " records recovered, fsync " + config.getFsyncPolicy() + ")");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Durable storage unavailable, running in memory: " + e.getMessage());
+        }
+    }
+    
+    // With arguments, runs them as one batch command (see BatchRunner) and exits with its
+    // status. Success returns normally instead of calling System.exit, which would block
+    // forever if the JVM is already shutting down (serve stops on Ctrl-C).
     public static void main(String[] args) {
+        if (args.length > 0) {
+            CCRMApplication app = new CCRMApplication(System.err);
+            int exitCode = app.runBatch(args);
+            if (exitCode != BatchRunner.EXIT_OK) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        
         System.out.println("Java Platform Information:");
         System.out.println("Java SE: Standard Edition - Desktop applications, core Java APIs");
         System.out.println("Java EE: Enterprise Edition - Web applications, distributed computing");  
@@ -52,6 +139,7 @@ public class CCRMApplication {
             
             // Create sample instructors
             Instructor i1 = new Instructor("I001", new Name("Dr. Alice", "Johnson"), "alice.j@email.com", "Computer Science");
+            instructors.add(i1);
             
             // Create sample courses using Builder pattern
             Course c1 = new Course.Builder("CS101", "Introduction to Programming")
@@ -72,15 +160,16 @@ public class CCRMApplication {
             courseService.save(c2);
             
             // Enroll students and assign grades
-            studentService.enrollStudent("S001", "CS101");
-            studentService.enrollStudent("S001", "CS102");
-            s1.assignGrade("CS101", Grade.A);
-            s1.assignGrade("CS102", Grade.B);
+            int maxCredits = config.getMaxCreditsPerSemester();
+            studentService.enrollStudent("S001", c1, maxCredits);
+            studentService.enrollStudent("S001", c2, maxCredits);
+            studentService.assignGrade("S001", "CS101", Grade.A);
+            studentService.assignGrade("S001", "CS102", Grade.B);
             
-            studentService.enrollStudent("S002", "CS101");
-            s2.assignGrade("CS101", Grade.S);
+            studentService.enrollStudent("S002", c1, maxCredits);
+            studentService.assignGrade("S002", "CS101", Grade.S);
             
-        } catch (IOException e) {
+        } catch (IOException | MaxCreditLimitExceededException e) {
             System.err.println("Error initializing test data: " + e.getMessage());
         }
     }
@@ -118,11 +207,14 @@ public class CCRMApplication {
                         importExportData();
                         break;
                     case 7:
-                        backupAndShowSize();
+                        manageBackups();
                         break;
                     case 8:
                         demonstrateAdvancedFeatures();
                         break;
+                    case 9:
+                        showServiceStatistics();
+                        break;
                     case 0:
                         running = false;
                         break mainLoop; // Labeled break demonstration
@@ -141,10 +233,30 @@ public class CCRMApplication {
             }
         }
         
+        shutdown();
         System.out.println("Thank you for using " + config.getApplicationName());
         scanner.close();
     }
     
+    public int runBatch(String... args) {
+        int exitCode = new BatchRunner(studentService, courseService, ioService, config, System.out, System.err).run(args);
+        shutdown();
+        return exitCode;
+    }
+    
+    // Batch runs persist their changes exactly like an interactive session
+    private void shutdown() {
+        if (durableStore != null) {
+            try {
+                durableStore.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+        } else if (!dataRestored) {
+            saveSnapshot();
+        }
+    }
+    
     private void displayMainMenu() {
         System.out.println("\n" + "=".repeat(30));
         System.out.println("MAIN MENU");
@@ -155,8 +267,9 @@ public class CCRMApplication {
         System.out.println("4. Manage Grades");
         System.out.println("5. Generate Reports");
         System.out.println("6. Import/Export Data");
-        System.out.println("7. Backup & Show Backup Size");
+        System.out.println("7. Backup & Restore");
         System.out.println("8. Advanced Features Demo");
+        System.out.println("9. Service Statistics");
         System.out.println("0. Exit");
         System.out.print("Enter your choice: ");
     }
@@ -259,11 +372,10 @@ public class CCRMApplication {
         System.out.print("Enter search term (name/email): ");
         String searchTerm = scanner.nextLine();
         
-        // Using lambda expressions for search
-        List<Student> results = studentService.search(student -> 
-            student.getName().getFullName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-            student.getEmail().toLowerCase().contains(searchTerm.toLowerCase())
-        );
+        // Indexed lookups on both fields; the set drops students matching twice
+        Set<Student> matches = new LinkedHashSet<>(studentService.filterBy("name", searchTerm));
+        matches.addAll(studentService.filterBy("email", searchTerm));
+        List<Student> results = new ArrayList<>(matches);
         
         if (results.isEmpty()) {
             System.out.println("No students found matching: " + searchTerm);
@@ -365,6 +477,10 @@ public class CCRMApplication {
             System.out.print("Enter Instructor ID: ");
             String instructorId = scanner.nextLine();
             
+            System.out.print("Enter Capacity (0 for unlimited): ");
+            String capacityInput = scanner.nextLine().trim();
+            int capacity = capacityInput.isEmpty() ? 0 : Integer.parseInt(capacityInput);
+            
             System.out.println("Select Semester:");
             Semester[] semesters = Semester.values();
             for (int i = 0; i < semesters.length; i++) {
@@ -380,6 +496,7 @@ public class CCRMApplication {
                 .department(department)
                 .instructor(instructorId)
                 .semester(semester)
+                .capacity(capacity)
                 .build();
             
             courseService.save(course);
@@ -480,6 +597,7 @@ public class CCRMApplication {
         System.out.println("1. Enroll Student in Course");
         System.out.println("2. Unenroll Student from Course");
         System.out.println("3. View Student Enrollments");
+        System.out.println("4. View Course Roster");
         System.out.print("Enter choice: ");
         
         try {
@@ -495,6 +613,9 @@ public class CCRMApplication {
                 case 3:
                     viewStudentEnrollments();
                     break;
+                case 4:
+                    viewCourseRoster();
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -524,17 +645,24 @@ public class CCRMApplication {
                 return;
             }
             
-            // Check credit limit using custom exception
-            int currentCredits = student.getEnrolledCourses().size() * 3; // Assume 3 credits per course
-            int newCredits = currentCredits + course.getCredits();
-            
+            // Credit check and enrollment happen atomically in the service
             try {
-                if (newCredits > config.getMaxCreditsPerSemester()) {
-                    throw new MaxCreditLimitExceededException(newCredits, config.getMaxCreditsPerSemester());
-                }
+                EnrollmentStatus status = studentService.enrollStudent(studentId, course, config.getMaxCreditsPerSemester());
                 
-                studentService.enrollStudent(studentId, courseCode);
-                System.out.println("Student enrolled successfully!");
+                switch (status) {
+                    case ENROLLED:
+                        System.out.println("Student enrolled successfully!");
+                        break;
+                    case ALREADY_ENROLLED:
+                        System.out.println("Student is already enrolled in " + courseCode + ".");
+                        break;
+                    case WAITLISTED:
+                        System.out.println("Course is full. Student added to the waitlist (position " 
+                            + course.getWaitlistSize() + ").");
+                        break;
+                    default:
+                        System.out.println("Student not found.");
+                }
                 
             } catch (MaxCreditLimitExceededException e) {
                 System.err.println("Enrollment failed: " + e.getMessage());
@@ -553,7 +681,14 @@ public class CCRMApplication {
             System.out.print("Enter Course Code: ");
             String courseCode = scanner.nextLine();
             
-            studentService.unenrollStudent(studentId, courseCode);
+            Course course = courseService.findById(courseCode);
+            if (course == null) {
+                System.out.println("Course not found.");
+                return;
+            }
+            
+            // Going through the course frees the seat and promotes the waitlist
+            studentService.unenrollStudent(studentId, course);
             System.out.println("Student unenrolled successfully!");
             
         } catch (Exception e) {
@@ -570,6 +705,12 @@ public class CCRMApplication {
             if (student != null) {
                 System.out.println("\nEnrolled Courses for " + student.getName().getFullName() + ":");
                 student.getEnrolledCourses().forEach(System.out::println);
+                
+                System.out.println("\nCredit load:");
+                for (Semester semester : Semester.values()) {
+                    System.out.println(semester.getDisplayName() + ": " + student.getCreditsForSemester(semester) 
+                        + "/" + config.getMaxCreditsPerSemester() + " credits");
+                }
             } else {
                 System.out.println("Student not found.");
             }
@@ -578,11 +719,36 @@ public class CCRMApplication {
         }
     }
     
+    private void viewCourseRoster() {
+        try {
+            System.out.print("Enter Course Code: ");
+            String courseCode = scanner.nextLine();
+            
+            List<Enrollment> roster = studentService.getRoster(courseCode);
+            System.out.println("\nRoster for " + courseCode + " (" + roster.size() + " students):");
+            
+            Course course = courseService.findById(courseCode);
+            if (course != null && course.hasCapacityLimit()) {
+                System.out.println("Seats: " + course.getSeatsTaken() + "/" + course.getCapacity() 
+                    + ", waitlist: " + course.getWaitlist());
+            }
+            for (Enrollment enrollment : roster) {
+                Student student = studentService.findById(enrollment.getStudentId());
+                String name = student != null ? student.getName().getFullName() : "?";
+                System.out.println(enrollment.getStudentId() + " - " + name + " (Grade: " 
+                    + (enrollment.getGrade() != null ? enrollment.getGrade() : "Not Graded") + ")");
+            }
+        } catch (IOException e) {
+            System.err.println("Error retrieving roster: " + e.getMessage());
+        }
+    }
+    
     private void manageGrades() {
         System.out.println("\n=== GRADE MANAGEMENT ===");
         System.out.println("1. Assign Grade");
         System.out.println("2. View Student Grades");
         System.out.println("3. Generate Transcript");
+        System.out.println("4. Generate All Transcripts (batch)");
         System.out.print("Enter choice: ");
         
         try {
@@ -598,6 +764,9 @@ public class CCRMApplication {
                 case 3:
                     generateTranscript();
                     break;
+                case 4:
+                    generateAllTranscripts();
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -618,9 +787,9 @@ public class CCRMApplication {
             double marks = Double.parseDouble(scanner.nextLine());
             
             Student student = studentService.findById(studentId);
-            if (student != null && student.getEnrolledCourses().contains(courseCode)) {
+            if (student != null && student.isEnrolledIn(courseCode)) {
                 Grade grade = Grade.fromMarks(marks);
-                student.assignGrade(courseCode, grade);
+                studentService.assignGrade(studentId, courseCode, grade);
                 
                 System.out.println("Grade assigned: " + grade + " (" + marks + " marks)");
             } else {
@@ -659,27 +828,9 @@ public class CCRMApplication {
             
             Student student = studentService.findById(studentId);
             if (student != null) {
-                System.out.println("\n" + "=".repeat(50));
-                System.out.println("OFFICIAL TRANSCRIPT");
-                System.out.println("=".repeat(50));
-                student.displayProfile(); // Uses polymorphism
-                
-                System.out.println("\nCourse Grades:");
-                student.getCourseGrades().forEach((course, grade) -> {
-                    try {
-                        Course courseObj = courseService.findById(course);
-                        if (courseObj != null) {
-                            System.out.printf("%-10s %-30s %d credits Grade: %s (%.1f)%n",
-                                course, courseObj.getTitle(), courseObj.getCredits(), 
-                                grade, grade.getGradePoint());
-                        }
-                    } catch (IOException e) {
-                        System.out.println(course + ": " + grade);
-                    }
-                });
-                
-                System.out.println("\nOverall GPA: " + String.format("%.2f", student.calculateGPA()));
-                System.out.println("=".repeat(50));
+                StringBuilder transcript = new StringBuilder("\n");
+                new TranscriptRenderer().render(student, this::findCourse, transcript);
+                System.out.print(transcript);
             } else {
                 System.out.println("Student not found.");
             }
@@ -688,11 +839,46 @@ public class CCRMApplication {
         }
     }
     
+    private Course findCourse(String code) {
+        try {
+            return courseService.findById(code);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    // Rerunning after an interrupted run only renders the transcripts that are missing
+    private void generateAllTranscripts() {
+        System.out.println("1. One file per student");
+        System.out.println("2. Zip archives (" + TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE + " students each)");
+        System.out.print("Enter choice: ");
+        String choice = scanner.nextLine().trim();
+        
+        try {
+            Path directory = config.getTranscriptDirectory();
+            Map<String, Course> courses = new HashMap<>();
+            for (Course course : courseService.findAll()) {
+                courses.put(course.getCode(), course);
+            }
+            
+            TranscriptJob job = new TranscriptJob(directory);
+            TranscriptJob.Report report = choice.equals("2")
+                ? job.writeArchives(studentService.findAll(), courses, TranscriptJob.DEFAULT_ARCHIVE_CHUNK_SIZE)
+                : job.writeFiles(studentService.findAll(), courses);
+            
+            System.out.println("Transcripts saved to " + directory.toAbsolutePath());
+            System.out.println(report);
+        } catch (IOException e) {
+            System.err.println("Error generating transcripts: " + e.getMessage());
+        }
+    }
+    
     private void generateReports() {
         System.out.println("\n=== REPORTS ===");
         System.out.println("1. Top Students by GPA");
         System.out.println("2. Courses by Department");
         System.out.println("3. GPA Distribution");
+        System.out.println("4. Course Analytics");
         System.out.print("Enter choice: ");
         
         try {
@@ -708,6 +894,9 @@ public class CCRMApplication {
                 case 3:
                     showGPADistribution();
                     break;
+                case 4:
+                    showCourseAnalytics();
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -743,57 +932,129 @@ public class CCRMApplication {
     
     private void showGPADistribution() {
         try {
-            List<Student> students = studentService.findAll();
-            
-            // Using Stream API for GPA distribution
-            long excellent = students.stream()
-                .mapToDouble(Student::calculateGPA)
-                .filter(gpa -> gpa >= 9.0)
-                .count();
+            Map<String, String> courseDepartments = new HashMap<>();
+            for (Course course : courseService.findAll()) {
+                courseDepartments.put(course.getCode(), course.getDepartment());
+            }
             
-            long good = students.stream()
-                .mapToDouble(Student::calculateGPA)
-                .filter(gpa -> gpa >= 7.0 && gpa < 9.0)
-                .count();
+            // Computed from the columnar grade store: buckets, mean, percentiles and the department breakdown
+            GpaStatistics.Report report = new GpaStatistics(GpaStatistics.DEFAULT_BOUNDARIES, courseDepartments)
+                .compute(studentService.getGradeStore());
+            String[] labels = {"Poor (<5.0)", "Average (5.0-6.9)", "Good (7.0-8.9)", "Excellent (9.0+)"};
             
-            long average = students.stream()
-                .mapToDouble(Student::calculateGPA)
-                .filter(gpa -> gpa >= 5.0 && gpa < 7.0)
-                .count();
+            System.out.println("\nGPA Distribution:");
+            for (int i = report.getBucketCount() - 1; i >= 0; i--) {
+                System.out.println(labels[i] + ": " + report.getBucket(i) + " students");
+            }
             
-            long poor = students.stream()
-                .mapToDouble(Student::calculateGPA)
-                .filter(gpa -> gpa < 5.0)
-                .count();
+            System.out.printf("%nMean GPA: %.2f (min %.2f, max %.2f)%n", 
+                report.getMean(), report.getMin(), report.getMax());
+            System.out.printf("Median: %.2f, 90th percentile: %.2f%n", 
+                report.percentile(50), report.percentile(90));
             
-            System.out.println("\nGPA Distribution:");
-            System.out.println("Excellent (9.0+): " + excellent + " students");
-            System.out.println("Good (7.0-8.9): " + good + " students");
-            System.out.println("Average (5.0-6.9): " + average + " students");
-            System.out.println("Poor (<5.0): " + poor + " students");
+            if (!report.getDepartments().isEmpty()) {
+                System.out.println("\nAverage grade point by department:");
+                report.getDepartments().values().forEach(d -> 
+                    System.out.printf("%s: %.2f (%d grades, %.0f%% passed)%n",
+                        d.getDepartment(), d.getMeanGradePoint(), d.getGradeCount(), d.getPassRate() * 100));
+            }
             
         } catch (IOException e) {
             System.err.println("Error generating GPA distribution: " + e.getMessage());
         }
     }
     
+    private void showCourseAnalytics() {
+        try {
+            CourseAnalytics.Report report = courseService.getCourseAnalytics(studentService.getGradeStore());
+            List<Course> courses = courseService.findAll();
+            courses.sort(Comparator.comparing(Course::getCode));
+            
+            System.out.println("\nCourse Analytics (" + report.getGradeCount() + " grades):");
+            StringBuilder header = new StringBuilder(String.format("%-10s %6s %5s %6s ", "Course", "Grades", "Mean", "Fail%"));
+            for (Grade grade : Grade.values()) {
+                header.append(String.format("%5s", grade));
+            }
+            System.out.println(header);
+            
+            for (Course course : courses) {
+                CourseAnalytics.CourseSummary summary = report.get(course.getCode());
+                if (summary == null) {
+                    System.out.printf("%-10s %6d %5s %6s%n", course.getCode(), 0, "-", "-");
+                    continue;
+                }
+                StringBuilder line = new StringBuilder(String.format("%-10s %6d %5.2f %5.1f%% ",
+                    course.getCode(), summary.getGradeCount(), summary.getMeanGradePoint(), summary.getFailRate() * 100));
+                for (Grade grade : Grade.values()) {
+                    line.append(String.format("%5d", summary.getCount(grade)));
+                }
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Error generating course analytics: " + e.getMessage());
+        }
+    }
+    
+    // Operations that have run, most total time first, so the calls that dominate stand out
+    private void showServiceStatistics() {
+        if (!Metrics.isEnabled()) {
+            System.out.println("Metrics are disabled (-Dccrm.metrics=false).");
+            return;
+        }
+        
+        List<OperationMetrics> operations = new ArrayList<>();
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getCount() > 0) operations.add(operation);
+        }
+        operations.sort(Comparator.comparingDouble(OperationMetrics::getTotalMillis).reversed());
+        
+        System.out.println("\n=== SERVICE STATISTICS ===");
+        if (operations.isEmpty()) {
+            System.out.println("No operations recorded yet.");
+            return;
+        }
+        System.out.printf("%-40s %8s %6s %10s %9s %9s %9s %9s%n",
+            "Operation", "Calls", "Errors", "Total ms", "Mean us", "p50 us", "p99 us", "Max us");
+        for (OperationMetrics operation : operations) {
+            System.out.printf("%-40s %8d %6d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                operation.getName(), operation.getCount(), operation.getErrors(), operation.getTotalMillis(),
+                operation.getMeanMicros(), operation.getP50Micros(), operation.getP99Micros(), operation.getMaxMicros());
+        }
+        System.out.println("(also available over JMX under edu.ccrm:type=Operation)");
+        
+        System.out.print("Reset counters? (y/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            Metrics.resetAll();
+            System.out.println("Counters reset.");
+        }
+    }
+    
     private void importExportData() {
         System.out.println("\n=== IMPORT/EXPORT DATA ===");
         System.out.println("1. Export Data to CSV");
-        System.out.println("2. Import Data from CSV (Not implemented in demo)");
+        System.out.println("2. Import Data from CSV");
+        System.out.println("3. Bulk Import from CSV (memory-mapped, parallel)");
+        System.out.println("4. Export Data to compressed CSV (gzip)");
         System.out.print("Enter choice: ");
         
         try {
             int choice = Integer.parseInt(scanner.nextLine());
             
-            if (choice == 1) {
+            if (choice == 1 || choice == 4) {
                 List<Student> students = studentService.findAll();
                 List<Course> courses = courseService.findAll();
                 
-                ioService.exportData(students, courses);
+                ioService.exportData(students, courses, choice == 4);
                 System.out.println("Data exported successfully!");
+            } else if (choice == 2 || choice == 3) {
+                List<ImportStats> results = ioService.importData(studentService, courseService, choice == 3);
+                
+                if (results.isEmpty()) {
+                    System.out.println("No CSV files found to import.");
+                }
+                results.forEach(System.out::println);
             } else {
-                System.out.println("Import feature not implemented in this demo.");
+                System.out.println("Invalid choice.");
             }
             
         } catch (NumberFormatException e) {
@@ -803,17 +1064,109 @@ public class CCRMApplication {
         }
     }
     
+    private void manageBackups() {
+        System.out.println("\n=== BACKUP & RESTORE ===");
+        System.out.println("1. Incremental Backup");
+        System.out.println("2. Full Backup & Show Backup Size");
+        System.out.println("3. List Backups");
+        System.out.println("4. Restore Backup");
+        System.out.println("5. Prune Old Backups");
+        System.out.print("Enter choice: ");
+        
+        try {
+            int choice = Integer.parseInt(scanner.nextLine());
+            
+            switch (choice) {
+                case 1:
+                    incrementalBackup();
+                    break;
+                case 2:
+                    backupAndShowSize();
+                    break;
+                case 3:
+                    listBackups();
+                    break;
+                case 4:
+                    restoreBackup();
+                    break;
+                case 5:
+                    pruneBackups();
+                    break;
+                default:
+                    System.out.println("Invalid choice.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Please enter a valid number.");
+        } catch (IOException e) {
+            System.err.println("Error during backup: " + e.getMessage());
+        }
+    }
+    
+    // Snapshots go into data/ first so every backup captures the in-memory state
+    private void writeSnapshots() throws IOException {
+        System.out.println("Student snapshot: " + studentService.writeSnapshot(courseService.findAll()));
+        System.out.println("Course snapshot: " + courseService.writeSnapshot());
+    }
+    
+    private void incrementalBackup() throws IOException {
+        writeSnapshots();
+        BackupStore.Report report = ioService.createBackup();
+        System.out.println("Backup " + report);
+    }
+    
+    private void listBackups() throws IOException {
+        List<BackupManifest> backups = ioService.getBackupStore().list();
+        if (backups.isEmpty()) {
+            System.out.println("No incremental backups found.");
+            return;
+        }
+        for (BackupManifest backup : backups) {
+            System.out.printf("%-32s %s  %d files, %d bytes%n", backup.getId(), backup.getCreated(),
+                backup.getFileCount(), backup.getTotalBytes());
+        }
+    }
+    
+    private void restoreBackup() throws IOException {
+        listBackups();
+        System.out.print("Enter backup ID to restore into " + config.getDataDirectory() + ": ");
+        String backupId = scanner.nextLine().trim();
+        
+        // The journal lives under data/ too, so it must not be appended to while it is replaced
+        if (durableStore != null) {
+            durableStore.close();
+            durableStore = null;
+            System.out.println("Journal closed; changes made from now on will not be saved.");
+        }
+        int files = ioService.restoreBackup(backupId);
+        dataRestored = true;
+        System.out.println("Restored " + files + " files. Restart the application to load the restored data.");
+    }
+    
+    private void pruneBackups() throws IOException {
+        System.out.print("Number of most recent backups to keep: ");
+        int keepLatest = Integer.parseInt(scanner.nextLine());
+        System.out.print("Also keep backups from the last N days (0 for none): ");
+        int keepDays = Integer.parseInt(scanner.nextLine());
+        
+        System.out.println(ioService.getBackupStore().prune(keepLatest, Duration.ofDays(keepDays)));
+    }
+    
     private void backupAndShowSize() {
         try {
-            Path backupPath = ioService.createBackup();
+            writeSnapshots();
+            
+            ParallelCopier.Report report = ioService.createFullBackup((filesDone, filesTotal, bytesDone, bytesTotal) ->
+                System.out.printf("  copied %d/%d files, %d/%d bytes%n", filesDone, filesTotal, bytesDone, bytesTotal));
+            Path backupPath = report.getTarget();
             System.out.println("Backup created at: " + backupPath.toAbsolutePath());
+            System.out.println("Copied " + report);
             
-            // Demonstrate recursive utility
-            long size = FileUtils.calculateDirectorySize(backupPath);
-            System.out.println("Backup size: " + size + " bytes");
+            // One parallel scan gives both the size and the listing; backups are write-once
+            FileUtils.DirectoryScan scan = FileUtils.scanWriteOnce(backupPath);
+            System.out.println("Backup size: " + scan.getTotalSize() + " bytes in " + scan.getFileCount() + " files");
             
             System.out.println("\nBackup directory structure:");
-            FileUtils.listFilesByDepth(backupPath, 2);
+            scan.print(2);
             
         } catch (IOException e) {
             System.err.println("Error creating backup: " + e.getMessage());
@@ -11,10 +11,35 @@ public class AppConfig {
     private final int maxCreditsPerSemester;
     private final String applicationName;
     
+    // Durable storage is opt-in: -Dccrm.durable=true journals every change under
+    // data/journal, with -Dccrm.fsync=ALWAYS|GROUP|NONE choosing how often it is synced
+    private final boolean durableStorage;
+    private final String journalDirectory;
+    private final String fsyncPolicy;
+    private final long compactionThresholdBytes;
+    
+    // Embedded HTTP API (the serve command): -Dccrm.http.port, -Dccrm.http.bind for the
+    // listen address (loopback unless set), -Dccrm.http.token for the bearer token every
+    // /api/ request must carry (a random one per run when unset), and -Dccrm.http.threads
+    // for the platform-thread pool used before Java 21, where virtual threads are unavailable
+    private final int httpPort;
+    private final String httpBindAddress;
+    private final String httpToken;
+    private final int httpThreads;
+    
     private AppConfig() {
         this.dataDirectory = "data";
         this.maxCreditsPerSemester = 20;
         this.applicationName = "Campus Course & Records Manager";
+        this.durableStorage = Boolean.getBoolean("ccrm.durable");
+        this.journalDirectory = System.getProperty("ccrm.journal", "data/journal");
+        this.fsyncPolicy = System.getProperty("ccrm.fsync", "GROUP").toUpperCase();
+        this.compactionThresholdBytes = Long.getLong("ccrm.compactBytes", 64L << 20);
+        this.httpPort = Integer.getInteger("ccrm.http.port", 8080);
+        this.httpBindAddress = System.getProperty("ccrm.http.bind", "127.0.0.1");
+        String token = System.getProperty("ccrm.http.token", "");
+        this.httpToken = token.isEmpty() ? null : token;
+        this.httpThreads = Integer.getInteger("ccrm.http.threads", Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
     }
     
     public static AppConfig getInstance() {
@@ -32,4 +57,15 @@ public class AppConfig {
     public int getMaxCreditsPerSemester() { return maxCreditsPerSemester; }
     public String getApplicationName() { return applicationName; }
     public Path getDataPath() { return Paths.get(dataDirectory); }
+    public Path getSnapshotPath() { return getDataPath().resolve("ccrm.snap"); }
+    public Path getSnapshotDirectory() { return getDataPath().resolve("snapshots"); }
+    public Path getTranscriptDirectory() { return Paths.get("transcripts"); }
+    public boolean isDurableStorageEnabled() { return durableStorage; }
+    public Path getJournalPath() { return Paths.get(journalDirectory); }
+    public String getFsyncPolicy() { return fsyncPolicy; }
+    public long getCompactionThresholdBytes() { return compactionThresholdBytes; }
+    public int getHttpPort() { return httpPort; }
+    public String getHttpBindAddress() { return httpBindAddress; }
+    public String getHttpToken() { return httpToken; }
+    public int getHttpThreads() { return httpThreads; }
 }
\ No newline at end of file
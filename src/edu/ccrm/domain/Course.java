@@ -1,6 +1,12 @@
 package edu.ccrm.domain;
 
 import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Course {
     private String code;
@@ -12,6 +18,26 @@ public class Course {
     private boolean isActive;
     private LocalDate createdDate;
     
+    // Seat allocation: capacity 0 means unlimited. Seats are claimed with CAS on the
+    // counter so concurrent enrollments can never oversell the course.
+    private volatile int capacity;
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+    // Each join takes a new ticket; queue entries whose ticket is no longer the student's
+    // current one (they left, or left and rejoined) are stale and skipped
+    private final Queue<WaitlistEntry> waitlist = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, Long> waitlisted = new ConcurrentHashMap<>();
+    private final AtomicLong waitlistTickets = new AtomicLong();
+    
+    private static final class WaitlistEntry {
+        final String studentId;
+        final long ticket;
+        
+        WaitlistEntry(String studentId, long ticket) {
+            this.studentId = studentId;
+            this.ticket = ticket;
+        }
+    }
+    
     // Private constructor for Builder pattern
     private Course(Builder builder) {
         this.code = builder.code;
@@ -20,6 +46,7 @@ public class Course {
         this.instructorId = builder.instructorId;
         this.semester = builder.semester;
         this.department = builder.department;
+        this.capacity = builder.capacity;
         this.isActive = true;
         this.createdDate = LocalDate.now();
     }
@@ -32,6 +59,7 @@ public class Course {
         private String instructorId;
         private Semester semester;
         private String department;
+        private int capacity;
         
         public Builder(String code, String title) {
             this.code = code;
@@ -58,6 +86,11 @@ public class Course {
             return this;
         }
         
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+        
         public Course build() {
             return new Course(this);
         }
@@ -72,6 +105,73 @@ public class Course {
     public String getDepartment() { return department; }
     public boolean isActive() { return isActive; }
     public LocalDate getCreatedDate() { return createdDate; }
+    public int getCapacity() { return capacity; }
+    public boolean hasCapacityLimit() { return capacity > 0; }
+    public int getSeatsTaken() { return seatsTaken.get(); }
+    
+    public int getAvailableSeats() {
+        return hasCapacityLimit() ? Math.max(0, capacity - seatsTaken.get()) : Integer.MAX_VALUE;
+    }
+    
+    // Claims one seat if any is left; lock-free, so a hot course never oversells
+    public boolean tryReserveSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            int limit = capacity;
+            if (limit > 0 && taken >= limit) return false;
+            if (seatsTaken.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+    
+    // Takes a seat even past capacity; only for restoring enrollments admitted earlier
+    public void claimSeat() {
+        seatsTaken.incrementAndGet();
+    }
+    
+    public void releaseSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            if (taken == 0 || seatsTaken.compareAndSet(taken, taken - 1)) return;
+        }
+    }
+    
+    // Waitlist is first come, first served; a student appears at most once, and one who
+    // leaves and rejoins goes to the back
+    public boolean joinWaitlist(String studentId) {
+        long ticket = waitlistTickets.incrementAndGet();
+        if (waitlisted.putIfAbsent(studentId, ticket) != null) return false;
+        waitlist.add(new WaitlistEntry(studentId, ticket));
+        return true;
+    }
+    
+    public String pollWaitlist() {
+        WaitlistEntry entry;
+        while ((entry = waitlist.poll()) != null) {
+            if (waitlisted.remove(entry.studentId, entry.ticket)) return entry.studentId;
+        }
+        return null;
+    }
+    
+    public boolean leaveWaitlist(String studentId) {
+        // The queue entry goes stale and is skipped lazily by pollWaitlist
+        return waitlisted.remove(studentId) != null;
+    }
+    
+    public boolean isWaitlisted(String studentId) { return waitlisted.containsKey(studentId); }
+    public int getWaitlistSize() { return waitlisted.size(); }
+    
+    public List<String> getWaitlist() {
+        List<String> ordered = new ArrayList<>();
+        for (WaitlistEntry entry : waitlist) {
+            if (isCurrent(entry)) ordered.add(entry.studentId);
+        }
+        return ordered;
+    }
+    
+    private boolean isCurrent(WaitlistEntry entry) {
+        Long ticket = waitlisted.get(entry.studentId);
+        return ticket != null && ticket == entry.ticket;
+    }
     
     // Setters
     public void setTitle(String title) { this.title = title; }
@@ -80,10 +180,11 @@ public class Course {
     public void setSemester(Semester semester) { this.semester = semester; }
     public void setDepartment(String department) { this.department = department; }
     public void setActive(boolean active) { this.isActive = active; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
     
     @Override
     public String toString() {
-        return String.format("Course[%s]: %s (%d credits, %s, %s)", 
+        return String.format("Course[%s]: %s (%d credits, %s, %s)",
             code, title, credits, semester.getDisplayName(), department);
     }
 }
@@ -19,5 +19,18 @@ public enum Grade {
         if (marks >= 50) return D;
         return F;
     }
+    
+    // A letter grade (S, A ... F) or marks out of 100; null if the text is neither
+    public static Grade parse(String text) {
+        for (Grade grade : values()) {
+            if (grade.name().equalsIgnoreCase(text)) return grade;
+        }
+        try {
+            double marks = Double.parseDouble(text);
+            return marks >= 0 && marks <= 100 ? fromMarks(marks) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
 
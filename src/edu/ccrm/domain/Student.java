@@ -2,6 +2,7 @@ package edu.ccrm.domain;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class Student extends Person {
     private String regNo;
@@ -9,6 +10,17 @@ public class Student extends Person {
     private Map<String, Grade> courseGrades;
     private LocalDate enrollmentDate;
     
+    // Running totals so GPA is O(1); grade points are whole numbers, so the sum stays exact.
+    // Course and grade state is guarded by this student's monitor.
+    private double gradePointTotal;
+    private int gradedCourseCount;
+    
+    // Credit ledger: what each enrolled course counted for, and the per-semester totals
+    // (indexed by Semester ordinal) kept in step on enroll and unenroll
+    private final Map<String, CreditEntry> courseCredits = new HashMap<>();
+    private final int[] semesterCredits = new int[Semester.values().length];
+    private int totalCredits;
+    
     public Student(String id, String regNo, Name name, String email) {
         super(id, name, email);
         this.regNo = regNo;
@@ -34,29 +46,73 @@ public class Student extends Person {
         System.out.println("GPA: " + String.format("%.2f", calculateGPA()));
     }
     
-    public void enrollInCourse(String courseCode) {
+    public synchronized void enrollInCourse(String courseCode) {
         enrolledCourses.add(courseCode);
     }
     
-    public void unenrollFromCourse(String courseCode) {
+    // Enrolls and books the course's credits against its semester
+    public synchronized void enrollInCourse(Course course) {
+        if (!enrolledCourses.add(course.getCode())) return;
+        
+        CreditEntry entry = new CreditEntry(course.getSemester(), course.getCredits());
+        courseCredits.put(course.getCode(), entry);
+        adjustCredits(entry, entry.credits);
+    }
+    
+    public synchronized void unenrollFromCourse(String courseCode) {
         enrolledCourses.remove(courseCode);
-        courseGrades.remove(courseCode);
+        CreditEntry entry = courseCredits.remove(courseCode);
+        if (entry != null) {
+            adjustCredits(entry, -entry.credits);
+        }
+        Grade removed = courseGrades.remove(courseCode);
+        if (removed != null) {
+            gradePointTotal -= removed.getGradePoint();
+            gradedCourseCount--;
+        }
     }
     
-    public void assignGrade(String courseCode, Grade grade) {
-        if (enrolledCourses.contains(courseCode)) {
-            courseGrades.put(courseCode, grade);
+    public synchronized void assignGrade(String courseCode, Grade grade) {
+        if (grade != null && enrolledCourses.contains(courseCode)) {
+            Grade previous = courseGrades.put(courseCode, grade);
+            if (previous != null) {
+                gradePointTotal -= previous.getGradePoint();
+            } else {
+                gradedCourseCount++;
+            }
+            gradePointTotal += grade.getGradePoint();
         }
     }
     
-    public double calculateGPA() {
-        if (courseGrades.isEmpty()) return 0.0;
-        
-        double totalPoints = courseGrades.values().stream()
-            .mapToDouble(Grade::getGradePoint)
-            .sum();
+    public synchronized double calculateGPA() {
+        if (gradedCourseCount == 0) return 0.0;
+        return gradePointTotal / gradedCourseCount;
+    }
+    
+    private void adjustCredits(CreditEntry entry, int delta) {
+        totalCredits += delta;
+        if (entry.semester != null) {
+            semesterCredits[entry.semester.ordinal()] += delta;
+        }
+    }
+    
+    public synchronized int getCreditsForSemester(Semester semester) {
+        return semester == null ? 0 : semesterCredits[semester.ordinal()];
+    }
+    
+    public synchronized int getTotalCredits() { return totalCredits; }
+    public synchronized boolean isEnrolledIn(String courseCode) { return enrolledCourses.contains(courseCode); }
+    public synchronized int getEnrolledCourseCount() { return enrolledCourses.size(); }
+    
+    // Credits are captured at enrollment so later edits to the course can't unbalance the ledger
+    private static final class CreditEntry {
+        final Semester semester;
+        final int credits;
         
-        return totalPoints / courseGrades.size();
+        CreditEntry(Semester semester, int credits) {
+            this.semester = semester;
+            this.credits = credits;
+        }
     }
     
     // Nested inner class for academic record
@@ -66,24 +122,42 @@ public class Student extends Person {
         
         public AcademicRecord(String semester) {
             this.semester = semester;
-            this.semesterGrades = new HashMap<>(courseGrades);
+            synchronized (Student.this) {
+                this.semesterGrades = new HashMap<>(courseGrades);
+            }
         }
         
         public void printRecord() {
             System.out.println("Academic Record for " + semester);
-            semesterGrades.forEach((course, grade) -> 
+            semesterGrades.forEach((course, grade) ->
                 System.out.println(course + ": " + grade));
         }
     }
     
+    // Visits grades in place, for reports that must not copy the map per student
+    public synchronized void forEachGrade(BiConsumer<String, Grade> action) {
+        courseGrades.forEach(action);
+    }
+    
+    // Every enrolled course with its grade (null while ungraded), copied in one step
+    public synchronized Map<String, Grade> getEnrollments() {
+        Map<String, Grade> copy = new HashMap<>();
+        for (String code : enrolledCourses) {
+            copy.put(code, courseGrades.get(code));
+        }
+        return copy;
+    }
+    
     // Getters
     public String getRegNo() { return regNo; }
-    public Set<String> getEnrolledCourses() { return new HashSet<>(enrolledCourses); }
-    public Map<String, Grade> getCourseGrades() { return new HashMap<>(courseGrades); }
+    public synchronized Set<String> getEnrolledCourses() { return new HashSet<>(enrolledCourses); }
+    public synchronized Map<String, Grade> getCourseGrades() { return new HashMap<>(courseGrades); }
     public LocalDate getEnrollmentDate() { return enrollmentDate; }
     
     @Override
     public String toString() {
-        return String.format("Student[%s]: %s (RegNo: %s, GPA: %.2f)", 
+        return String.format("Student[%s]: %s (RegNo: %s, GPA: %.2f)",
             id, name.getFullName(), regNo, calculateGPA());
     }
+
+}
\ No newline at end of file
@@ -0,0 +1,565 @@
+package edu.ccrm.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+import edu.ccrm.util.JsonWriter;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
+import edu.ccrm.util.ThreadPools;
+import edu.ccrm.util.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+
+// Embedded HTTP/JSON API on the JDK's built-in server. Each request runs on
+// ThreadPools.newPerTaskExecutor: its own virtual thread on Java 21+, a fixed pool of
+// platform threads (ccrm.http.threads) before that. The services are already safe for
+// concurrent use, so handlers call them directly. Request bodies are form-encoded, and
+// query parameters are accepted in their place. Errors come back as {"error": "..."}.
+// The server listens on ccrm.http.bind (loopback by default), and every /api/ request
+// needs an "Authorization: Bearer <token>" header carrying ccrm.http.token, or the token
+// generated for this run when none is configured. /health is open.
+//   GET    /api/students?name=|email=&offset=0&limit=100
+//   GET    /api/students/{id}
+//   POST   /api/students                 id, regNo, firstName, lastName, email
+//   GET    /api/courses?department=|instructor=|semester=
+//   GET    /api/courses/{code}
+//   GET    /api/courses/{code}/roster
+//   POST   /api/enrollments              studentId, courseCode
+//   DELETE /api/enrollments              studentId, courseCode
+//   PUT    /api/grades                   studentId, courseCode, grade (letter or marks)
+//   GET    /api/reports/top?n=10 | /api/reports/gpa | /api/reports/analytics
+//   GET    /api/stats
+//   GET    /health
+public class ApiServer implements AutoCloseable {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int BACKLOG = 1024;
+    private static final int TOKEN_BYTES = 24;
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final AppConfig config;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String token;
+    private final byte[] tokenBytes;
+    
+    // The GPA report scans every grade, so it is reused until the grade store changes
+    private volatile GpaSnapshot gpaReport;
+    
+    private static final class GpaSnapshot {
+        final long version;
+        final int courseCount;
+        final GpaStatistics.Report report;
+        
+        GpaSnapshot(long version, int courseCount, GpaStatistics.Report report) {
+            this.version = version;
+            this.courseCount = courseCount;
+            this.report = report;
+        }
+    }
+    
+    // Port 0 binds an ephemeral port; see getPort
+    public ApiServer(StudentService studentService, CourseService courseService, AppConfig config, int port)
+            throws IOException {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.config = config;
+        this.token = config.getHttpToken() != null ? config.getHttpToken() : newToken();
+        this.tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+        InetAddress bindAddress = InetAddress.getByName(config.getHttpBindAddress());
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), BACKLOG);
+        this.executor = ThreadPools.newPerTaskExecutor("http", config.getHttpThreads());
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.createContext("/health", exchange -> respond(exchange, 200, new JsonWriter()
+            .beginObject().name("status").value("UP").endObject()));
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    // Where clients reach the server, e.g. http://127.0.0.1:8080
+    public String getBaseUrl() {
+        String host = server.getAddress().getAddress().getHostAddress();
+        return "http://" + (host.contains(":") ? "[" + host + "]" : host) + ":" + getPort();
+    }
+    
+    // The bearer token clients must send; generated per run unless ccrm.http.token is set
+    public String getToken() {
+        return token;
+    }
+    
+    // Gives in-flight requests up to a second to finish
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+    
+    private static final class Response {
+        final int status;
+        final JsonWriter body;
+        
+        Response(int status, JsonWriter body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    
+    private static Response ok(JsonWriter body) {
+        return new Response(200, body);
+    }
+    
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            respond(exchange, 401, error("Missing or invalid API token"));
+            return;
+        }
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+            Map<String, String> params = parameters(exchange);
+            Response response = route(exchange, exchange.getRequestMethod(), path, params);
+            respond(exchange, response.status, response.body);
+        } catch (ApiException e) {
+            respond(exchange, e.status, error(e.getMessage()));
+        } catch (ValidationException | IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (MaxCreditLimitExceededException e) {
+            respond(exchange, 409, error(e.getMessage()));
+        } catch (Exception e) {
+            // Details stay in the server log; they can name files and internal classes
+            System.err.println("API error on " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            e.printStackTrace();
+            respond(exchange, 500, error("Internal server error"));
+        }
+    }
+    
+    private Response route(HttpExchange exchange, String method, String[] path, Map<String, String> params)
+            throws Exception {
+        switch (path[0]) {
+            case "students":
+                if (path.length == 1) {
+                    if (method.equals("POST")) return createStudent(exchange, params);
+                    requireGet(method);
+                    return ok(listStudents(params));
+                }
+                requireGet(method);
+                if (path.length == 2) return ok(student(studentService.findById(path[1])));
+                break;
+            case "courses":
+                requireGet(method);
+                if (path.length == 1) return ok(listCourses(params));
+                if (path.length == 2) return ok(course(new JsonWriter(), findCourse(path[1])));
+                if (path.length == 3 && path[2].equals("roster")) return ok(roster(findCourse(path[1])));
+                break;
+            case "enrollments":
+                if (path.length == 1 && method.equals("POST")) return enroll(params);
+                if (path.length == 1 && method.equals("DELETE")) return ok(unenroll(params));
+                break;
+            case "grades":
+                if (path.length == 1 && (method.equals("PUT") || method.equals("POST"))) return ok(assignGrade(params));
+                break;
+            case "reports":
+                requireGet(method);
+                if (path.length == 2) return ok(report(path[1], params));
+                break;
+            case "stats":
+                requireGet(method);
+                return ok(stats());
+            default:
+                break;
+        }
+        throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+    }
+    
+    // Constant-time comparison, so response timing does not reveal how much of a guess matched
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return false;
+        byte[] presented = header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(presented, tokenBytes);
+    }
+    
+    private static String newToken() {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+    
+    private static void requireGet(String method) {
+        if (!method.equals("GET")) throw new ApiException(405, "Method not allowed: " + method);
+    }
+    
+    private JsonWriter listStudents(Map<String, String> params) throws IOException {
+        List<Student> students;
+        if (params.containsKey("name")) {
+            students = studentService.filterBy("name", params.get("name"));
+        } else if (params.containsKey("email")) {
+            students = studentService.filterBy("email", params.get("email"));
+        } else {
+            students = studentService.findAll();
+            students.sort(Comparator.comparing(Student::getId));
+        }
+        
+        int offset = Math.max(0, intParam(params, "offset", 0));
+        int limit = Math.min(MAX_PAGE_SIZE, Math.max(0, intParam(params, "limit", DEFAULT_PAGE_SIZE)));
+        int end = (int) Math.min(students.size(), (long) offset + limit);
+        
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("total").value(students.size())
+            .name("offset").value(offset)
+            .name("students").beginArray();
+        for (int i = offset; i < end; i++) {
+            studentSummary(json, students.get(i));
+        }
+        return json.endArray().endObject();
+    }
+    
+    private Response createStudent(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String id = required(params, "id");
+        Student student = new Student(id, required(params, "regNo"),
+            new Name(required(params, "firstName"), required(params, "lastName")), required(params, "email"));
+        if (!studentService.saveIfAbsent(student)) {
+            throw new ApiException(409, "Student already exists: " + id);
+        }
+        exchange.getResponseHeaders().set("Location", "/api/students/" + id);
+        return new Response(201, student(student));
+    }
+    
+    private static JsonWriter studentSummary(JsonWriter json, Student student) {
+        return json.beginObject()
+            .name("id").value(student.getId())
+            .name("regNo").value(student.getRegNo())
+            .name("name").value(student.getName().getFullName())
+            .name("email").value(student.getEmail())
+            .name("gpa").value(student.calculateGPA())
+            .endObject();
+    }
+    
+    private static JsonWriter student(Student student) {
+        if (student == null) throw new ApiException(404, "Student not found");
+        
+        // One copy of the grades, so the GPA and the listed grades agree
+        Map<String, Grade> grades = new TreeMap<>(student.getCourseGrades());
+        List<String> courses = new ArrayList<>(student.getEnrolledCourses());
+        Collections.sort(courses);
+        
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("id").value(student.getId())
+            .name("regNo").value(student.getRegNo())
+            .name("name").value(student.getName().getFullName())
+            .name("email").value(student.getEmail())
+            .name("active").value(student.isActive())
+            .name("enrollmentDate").value(String.valueOf(student.getEnrollmentDate()))
+            .name("totalCredits").value(student.getTotalCredits())
+            .name("gpa").value(gpa(grades.values()))
+            .name("courses").beginArray();
+        for (String course : courses) {
+            json.value(course);
+        }
+        json.endArray().name("grades").beginObject();
+        grades.forEach((course, grade) -> json.name(course).value(grade.name()));
+        return json.endObject().endObject();
+    }
+    
+    private static double gpa(Collection<Grade> grades) {
+        if (grades.isEmpty()) return 0.0;
+        double points = 0;
+        for (Grade grade : grades) points += grade.getGradePoint();
+        return points / grades.size();
+    }
+    
+    private JsonWriter listCourses(Map<String, String> params) throws IOException {
+        List<Course> courses = null;
+        for (String field : new String[] {"department", "instructor", "semester"}) {
+            if (params.containsKey(field)) {
+                courses = courseService.filterBy(field, params.get(field));
+                break;
+            }
+        }
+        if (courses == null) courses = courseService.findAll();
+        courses.sort(Comparator.comparing(Course::getCode));
+        
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("total").value(courses.size())
+            .name("courses").beginArray();
+        for (Course course : courses) {
+            course(json, course);
+        }
+        return json.endArray().endObject();
+    }
+    
+    private Course findCourse(String code) throws IOException {
+        Course course = courseService.findById(code);
+        if (course == null) throw new ApiException(404, "Course not found: " + code);
+        return course;
+    }
+    
+    private static JsonWriter course(JsonWriter json, Course course) {
+        json.beginObject()
+            .name("code").value(course.getCode())
+            .name("title").value(course.getTitle())
+            .name("credits").value(course.getCredits())
+            .name("department").value(course.getDepartment())
+            .name("semester").value(course.getSemester() != null ? course.getSemester().name() : null)
+            .name("instructorId").value(course.getInstructorId())
+            .name("active").value(course.isActive());
+        if (course.hasCapacityLimit()) {
+            json.name("capacity").value(course.getCapacity())
+                .name("seatsTaken").value(course.getSeatsTaken())
+                .name("waitlisted").value(course.getWaitlistSize());
+        }
+        return json.endObject();
+    }
+    
+    private JsonWriter roster(Course course) {
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("course").value(course.getCode())
+            .name("enrollments").beginArray();
+        for (Enrollment enrollment : studentService.getRoster(course.getCode())) {
+            json.beginObject()
+                .name("studentId").value(enrollment.getStudentId())
+                .name("enrollmentDate").value(String.valueOf(enrollment.getEnrollmentDate()))
+                .name("grade").value(enrollment.getGrade() != null ? enrollment.getGrade().name() : null)
+                .endObject();
+        }
+        return json.endArray().endObject();
+    }
+    
+    // 201 when a seat was taken, 202 when waitlisted, 200 when already enrolled
+    private Response enroll(Map<String, String> params) throws Exception {
+        String studentId = required(params, "studentId");
+        Course course = findCourse(required(params, "courseCode"));
+        EnrollmentStatus status = studentService.enrollStudent(studentId, course, config.getMaxCreditsPerSemester());
+        if (status == EnrollmentStatus.STUDENT_NOT_FOUND) {
+            throw new ApiException(404, "Student not found: " + studentId);
+        }
+        int code = status == EnrollmentStatus.ENROLLED ? 201 : status == EnrollmentStatus.WAITLISTED ? 202 : 200;
+        return new Response(code, enrollment(studentId, course.getCode(), status.name()));
+    }
+    
+    private JsonWriter unenroll(Map<String, String> params) throws IOException {
+        String studentId = required(params, "studentId");
+        Course course = findCourse(required(params, "courseCode"));
+        if (!studentService.unenrollStudent(studentId, course)) {
+            throw new ApiException(404, studentId + " is not enrolled in " + course.getCode());
+        }
+        return enrollment(studentId, course.getCode(), "UNENROLLED");
+    }
+    
+    private static JsonWriter enrollment(String studentId, String courseCode, String status) {
+        return new JsonWriter().beginObject()
+            .name("studentId").value(studentId)
+            .name("courseCode").value(courseCode)
+            .name("status").value(status)
+            .endObject();
+    }
+    
+    private JsonWriter assignGrade(Map<String, String> params) throws IOException {
+        String studentId = required(params, "studentId");
+        String courseCode = required(params, "courseCode");
+        Grade grade = Grade.parse(required(params, "grade"));
+        if (grade == null) throw new IllegalArgumentException("grade must be a letter (S, A-F) or marks 0-100");
+        
+        Student student = studentService.findById(studentId);
+        if (student == null) throw new ApiException(404, "Student not found: " + studentId);
+        if (!student.isEnrolledIn(courseCode)) {
+            throw new ApiException(409, studentId + " is not enrolled in " + courseCode);
+        }
+        studentService.assignGrade(studentId, courseCode, grade);
+        return new JsonWriter().beginObject()
+            .name("studentId").value(studentId)
+            .name("courseCode").value(courseCode)
+            .name("grade").value(grade.name())
+            .endObject();
+    }
+    
+    private JsonWriter report(String name, Map<String, String> params) throws IOException {
+        switch (name) {
+            case "top":
+                int count = Math.min(MAX_PAGE_SIZE, intParam(params, "n", 10));
+                JsonWriter json = new JsonWriter().beginArray();
+                for (Student student : studentService.getTopStudents(count)) {
+                    studentSummary(json, student);
+                }
+                return json.endArray();
+            case "gpa":
+                return gpaReport();
+            case "analytics":
+                return analyticsReport();
+            default:
+                throw new ApiException(404, "No such report: " + name);
+        }
+    }
+    
+    private JsonWriter gpaReport() throws IOException {
+        GradeStore store = studentService.getGradeStore();
+        List<Course> courses = courseService.findAll();
+        GpaSnapshot snapshot = gpaReport;
+        long version = store.getVersion();
+        if (snapshot == null || snapshot.version != version || snapshot.courseCount != courses.size()) {
+            Map<String, String> courseDepartments = new HashMap<>();
+            for (Course course : courses) {
+                courseDepartments.put(course.getCode(), course.getDepartment());
+            }
+            snapshot = new GpaSnapshot(version, courses.size(),
+                new GpaStatistics(GpaStatistics.DEFAULT_BOUNDARIES, courseDepartments).compute(store));
+            gpaReport = snapshot;
+        }
+        
+        GpaStatistics.Report report = snapshot.report;
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("students").value(report.getStudentCount())
+            .name("mean").value(report.getMean())
+            .name("min").value(report.getMin())
+            .name("max").value(report.getMax())
+            .name("median").value(report.percentile(50))
+            .name("p90").value(report.percentile(90))
+            .name("buckets").beginArray();
+        for (int i = 0; i < report.getBucketCount(); i++) {
+            json.beginObject()
+                .name("range").value(report.getBucketLabel(i))
+                .name("students").value(report.getBucket(i))
+                .endObject();
+        }
+        json.endArray().name("departments").beginArray();
+        for (GpaStatistics.DepartmentSummary department : report.getDepartments().values()) {
+            json.beginObject()
+                .name("department").value(department.getDepartment())
+                .name("meanGradePoint").value(department.getMeanGradePoint())
+                .name("grades").value(department.getGradeCount())
+                .name("passRate").value(department.getPassRate())
+                .endObject();
+        }
+        return json.endArray().endObject();
+    }
+    
+    private JsonWriter analyticsReport() {
+        CourseAnalytics.Report report = courseService.getCourseAnalytics(studentService.getGradeStore());
+        List<CourseAnalytics.CourseSummary> courses = new ArrayList<>(report.getCourses());
+        courses.sort(Comparator.comparing(CourseAnalytics.CourseSummary::getCourseCode));
+        
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("grades").value(report.getGradeCount())
+            .name("courses").beginArray();
+        for (CourseAnalytics.CourseSummary course : courses) {
+            json.beginObject()
+                .name("code").value(course.getCourseCode())
+                .name("grades").value(course.getGradeCount())
+                .name("meanGradePoint").value(course.getMeanGradePoint())
+                .name("failRate").value(course.getFailRate())
+                .name("histogram").beginObject();
+            for (Grade grade : Grade.values()) {
+                json.name(grade.name()).value(course.getCount(grade));
+            }
+            json.endObject().endObject();
+        }
+        return json.endArray().endObject();
+    }
+    
+    private static JsonWriter stats() {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getCount() == 0) continue;
+            json.beginObject()
+                .name("operation").value(operation.getName())
+                .name("calls").value(operation.getCount())
+                .name("errors").value(operation.getErrors())
+                .name("totalMillis").value(operation.getTotalMillis())
+                .name("meanMicros").value(operation.getMeanMicros())
+                .name("p50Micros").value(operation.getP50Micros())
+                .name("p99Micros").value(operation.getP99Micros())
+                .name("maxMicros").value(operation.getMaxMicros())
+                .endObject();
+        }
+        return json.endArray();
+    }
+    
+    // Query parameters, then form fields from the body; a body field wins over a query one
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        decode(exchange.getRequestURI().getRawQuery(), params);
+        
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) throw new ApiException(413, "Request body too large");
+            if (bytes.length > 0) decode(new String(bytes, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+    
+    private static void decode(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+    
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value.trim();
+    }
+    
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+    
+    private static JsonWriter error(String message) {
+        return new JsonWriter().beginObject().name("error").value(message).endObject();
+    }
+    
+    private static void respond(HttpExchange exchange, int status, JsonWriter json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
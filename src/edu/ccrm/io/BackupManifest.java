@@ -0,0 +1,104 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+
+// One backup: every file's path, size, modification time and the chunks that rebuild it.
+// Stored as tab-separated text so a backup can be inspected without the application.
+public final class BackupManifest {
+    private static final String HEADER = "CCRM-BACKUP 1";
+    
+    private final String id;
+    private final long createdMillis;
+    private final List<FileEntry> files;
+    
+    BackupManifest(String id, long createdMillis, List<FileEntry> files) {
+        this.id = id;
+        this.createdMillis = createdMillis;
+        this.files = files;
+    }
+    
+    public String getId() { return id; }
+    public Instant getCreated() { return Instant.ofEpochMilli(createdMillis); }
+    public int getFileCount() { return files.size(); }
+    
+    public long getTotalBytes() {
+        long total = 0;
+        for (FileEntry file : files) {
+            total += file.size;
+        }
+        return total;
+    }
+    
+    List<FileEntry> getFiles() { return files; }
+    
+    // Entries by relative path, for matching files against the previous backup
+    Map<String, FileEntry> byPath() {
+        Map<String, FileEntry> entries = new HashMap<>();
+        for (FileEntry file : files) {
+            entries.put(file.path, file);
+        }
+        return entries;
+    }
+    
+    static final class FileEntry {
+        final String path; // relative, '/'-separated
+        final long size;
+        final long modifiedMillis;
+        final List<String> chunks; // SHA-256 hex of each chunk, in file order
+        
+        FileEntry(String path, long size, long modifiedMillis, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.chunks = chunks;
+        }
+    }
+    
+    void write(Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.write('\n');
+            out.write("created\t" + createdMillis + "\n");
+            for (FileEntry file : files) {
+                out.write("file\t" + file.path + "\t" + file.size + "\t" + file.modifiedMillis + "\t");
+                out.write(String.join(",", file.chunks));
+                out.write('\n');
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    static BackupManifest read(String id, Path source) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(in.readLine())) {
+                throw new IOException("Not a backup manifest: " + source);
+            }
+            
+            long created = 0;
+            List<FileEntry> files = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equals("created") && fields.length == 2) {
+                    created = Long.parseLong(fields[1]);
+                } else if (fields[0].equals("file") && fields.length == 5) {
+                    List<String> chunks = fields[4].isEmpty()
+                        ? Collections.emptyList() : Arrays.asList(fields[4].split(","));
+                    files.add(new FileEntry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]), chunks));
+                } else {
+                    throw new IOException("Malformed manifest line in " + source + ": " + line);
+                }
+            }
+            return new BackupManifest(id, created, files);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Deduplicated incremental backups. Files are cut into content-defined chunks, each chunk
+// is stored once under its SHA-256 in chunks/, and every backup is just a manifest listing
+// the chunks of each file. Files whose size and modification time match the previous
+// backup are not read at all, so backing up an unchanged directory only writes a manifest.
+public class BackupStore {
+    private static final String CHUNK_DIR = "chunks";
+    private static final String MANIFEST_DIR = "manifests";
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+    
+    private final Path chunkDir;
+    private final Path manifestDir;
+    
+    public BackupStore(Path root) {
+        this.chunkDir = root.resolve(CHUNK_DIR);
+        this.manifestDir = root.resolve(MANIFEST_DIR);
+    }
+    
+    public Report backup(Path source) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(chunkDir);
+        Files.createDirectories(manifestDir);
+        
+        List<BackupManifest> existing = list();
+        Map<String, BackupManifest.FileEntry> previous = existing.isEmpty()
+            ? Collections.emptyMap() : existing.get(existing.size() - 1).byPath();
+        
+        Report report = new Report();
+        List<BackupManifest.FileEntry> entries = new ArrayList<>();
+        MessageDigest digest = sha256();
+        for (Path file : listFiles(source)) {
+            String relative = toRelative(source, file);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            
+            BackupManifest.FileEntry before = previous.get(relative);
+            if (before != null && before.size == size && before.modifiedMillis == modified) {
+                entries.add(before);
+                report.filesReused++;
+            } else {
+                entries.add(new BackupManifest.FileEntry(relative, size, modified, storeChunks(file, digest, report)));
+                report.bytesRead += size;
+            }
+        }
+        
+        // Chunks are all on disk before the manifest that references them appears
+        String id = newId(existing);
+        BackupManifest manifest = new BackupManifest(id, System.currentTimeMillis(), entries);
+        manifest.write(manifestDir.resolve(id + MANIFEST_SUFFIX));
+        
+        report.manifest = manifest;
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+    
+    private List<String> storeChunks(Path file, MessageDigest digest, Report report) throws IOException {
+        List<String> hashes = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            ContentChunker.split(in, (data, offset, length) -> {
+                digest.update(data, offset, length);
+                String hash = toHex(digest.digest());
+                hashes.add(hash);
+                
+                Path chunkPath = chunkPath(hash);
+                if (!Files.exists(chunkPath)) {
+                    Files.createDirectories(chunkPath.getParent());
+                    Path temp = chunkPath.resolveSibling(hash + ".tmp");
+                    try {
+                        try (OutputStream out = Files.newOutputStream(temp)) {
+                            out.write(data, offset, length);
+                        }
+                        Files.move(temp, chunkPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException | RuntimeException e) {
+                        discard(temp, e);
+                        throw e;
+                    }
+                    report.chunksWritten++;
+                    report.bytesWritten += length;
+                } else {
+                    report.chunksReused++;
+                }
+            });
+        }
+        return hashes;
+    }
+    
+    // Oldest first
+    public List<BackupManifest> list() throws IOException {
+        if (!Files.isDirectory(manifestDir)) return new ArrayList<>();
+        
+        List<String> ids;
+        try (Stream<Path> paths = Files.list(manifestDir)) {
+            ids = paths.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(MANIFEST_SUFFIX))
+                .map(name -> name.substring(0, name.length() - MANIFEST_SUFFIX.length()))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        List<BackupManifest> manifests = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            manifests.add(BackupManifest.read(id, manifestDir.resolve(id + MANIFEST_SUFFIX)));
+        }
+        return manifests;
+    }
+    
+    // Rebuilds every file of the backup under target, verifying each chunk's hash and
+    // restoring modification times. Files in target that the backup doesn't list are kept.
+    public int restore(String backupId, Path target) throws IOException {
+        Path manifestPath = manifestDir.resolve(backupId + MANIFEST_SUFFIX);
+        if (!Files.exists(manifestPath)) {
+            throw new IOException("No such backup: " + backupId);
+        }
+        BackupManifest manifest = BackupManifest.read(backupId, manifestPath);
+        MessageDigest digest = sha256();
+        
+        for (BackupManifest.FileEntry file : manifest.getFiles()) {
+            Path destination = target.resolve(file.path).normalize();
+            if (!destination.startsWith(target.normalize())) {
+                throw new IOException("Backup entry escapes the restore directory: " + file.path);
+            }
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+            
+            Path temp = destination.resolveSibling(destination.getFileName() + ".restore");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    for (String hash : file.chunks) {
+                        byte[] chunk = Files.readAllBytes(chunkPath(hash));
+                        if (!hash.equals(toHex(digest.digest(chunk)))) {
+                            throw new IOException("Chunk " + hash + " of " + file.path + " is corrupt");
+                        }
+                        out.write(chunk);
+                    }
+                }
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(file.modifiedMillis));
+                Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                discard(temp, e);
+                throw e;
+            }
+        }
+        return manifest.getFileCount();
+    }
+    
+    // Removes a half-written temp file after a failure, keeping the original error
+    private static void discard(Path temp, Exception failure) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+    
+    // Keeps the newest keepLatest backups and any taken within keepWithin, then deletes
+    // chunks no remaining backup refers to
+    public PruneReport prune(int keepLatest, Duration keepWithin) throws IOException {
+        List<BackupManifest> manifests = list();
+        long cutoff = System.currentTimeMillis() - keepWithin.toMillis();
+        PruneReport report = new PruneReport();
+        
+        Set<String> live = new HashSet<>();
+        for (int i = 0; i < manifests.size(); i++) {
+            BackupManifest manifest = manifests.get(i);
+            boolean recent = i >= manifests.size() - keepLatest || manifest.getCreated().toEpochMilli() >= cutoff;
+            if (recent) {
+                for (BackupManifest.FileEntry file : manifest.getFiles()) {
+                    live.addAll(file.chunks);
+                }
+            } else {
+                Files.delete(manifestDir.resolve(manifest.getId() + MANIFEST_SUFFIX));
+                report.backupsRemoved++;
+            }
+        }
+        if (report.backupsRemoved == 0 || !Files.isDirectory(chunkDir)) return report;
+        
+        try (Stream<Path> paths = Files.walk(chunkDir)) {
+            for (Path chunk : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                if (!live.contains(chunk.getFileName().toString())) {
+                    report.bytesFreed += Files.size(chunk);
+                    Files.delete(chunk);
+                    report.chunksRemoved++;
+                }
+            }
+        }
+        return report;
+    }
+    
+    private Path chunkPath(String hash) {
+        return chunkDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+    
+    private static List<Path> listFiles(Path source) throws IOException {
+        if (!Files.isDirectory(source)) return new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(source)) {
+            return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private static String toRelative(Path source, Path file) {
+        return source.relativize(file).toString().replace(source.getFileSystem().getSeparator(), "/");
+    }
+    
+    // Timestamp ids sort chronologically; two backups in the same millisecond get a suffix
+    private static String newId(List<BackupManifest> existing) {
+        String base = "backup_" + LocalDateTime.now().format(ID_FORMAT);
+        Set<String> taken = existing.stream().map(BackupManifest::getId).collect(Collectors.toSet());
+        String id = base;
+        for (int n = 1; taken.contains(id); n++) {
+            id = base + "_" + n;
+        }
+        return id;
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            hex[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(hex);
+    }
+    
+    public static class Report {
+        private BackupManifest manifest;
+        private int filesReused;
+        private long bytesRead;
+        private int chunksWritten;
+        private int chunksReused;
+        private long bytesWritten;
+        private long elapsedNanos;
+        
+        public BackupManifest getManifest() { return manifest; }
+        public int getFilesReused() { return filesReused; }
+        public long getBytesRead() { return bytesRead; }
+        public int getChunksWritten() { return chunksWritten; }
+        public int getChunksReused() { return chunksReused; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d files (%d unchanged), %d bytes read, %d new chunks (%d bytes), "
+                    + "%d chunks already stored, %.1f ms",
+                manifest.getId(), manifest.getFileCount(), filesReused, bytesRead, chunksWritten,
+                bytesWritten, chunksReused, elapsedNanos / 1e6);
+        }
+    }
+    
+    public static class PruneReport {
+        private int backupsRemoved;
+        private int chunksRemoved;
+        private long bytesFreed;
+        
+        public int getBackupsRemoved() { return backupsRemoved; }
+        public int getChunksRemoved() { return chunksRemoved; }
+        public long getBytesFreed() { return bytesFreed; }
+        
+        @Override
+        public String toString() {
+            return String.format("%d backups removed, %d chunks removed, %d bytes freed",
+                backupsRemoved, chunksRemoved, bytesFreed);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+// Versioned binary image of the domain: instructors, courses, and students with their
+// enrollments and grades. Every string is stored once in a dictionary and referenced by
+// varint index; Grade and Semester are stored as ordinals.
+//
+// Layout: a 32-byte header (magic, version, flags, index offset, CRC32 of everything after
+// the header), the three record sections, the dictionary, and an index holding the offset
+// of every BLOCK_SIZE-th dictionary entry and student so both can be decoded in parallel
+// straight from a memory mapping. The file is written in one pass through a FileChannel.
+public final class BinarySnapshot {
+    public static final int VERSION = 1;
+    
+    private static final long MAGIC = 0x4343524D534E4150L; // "CCRMSNAP"
+    private static final int HEADER_SIZE = 32;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int NONE = 0xFF; // missing semester or grade
+    
+    private BinarySnapshot() {}
+    
+    public static final class Contents {
+        private final List<Instructor> instructors;
+        private final List<Course> courses;
+        private final List<Student> students;
+        
+        Contents(List<Instructor> instructors, List<Course> courses, List<Student> students) {
+            this.instructors = instructors;
+            this.courses = courses;
+            this.students = students;
+        }
+        
+        public List<Instructor> getInstructors() { return instructors; }
+        public List<Course> getCourses() { return courses; }
+        public List<Student> getStudents() { return students; }
+        
+        public int getEntityCount() {
+            return instructors.size() + courses.size() + students.size();
+        }
+    }
+    
+    public static void write(Path target, Collection<Student> students, Collection<Course> courses,
+                             Collection<Instructor> instructors) throws IOException {
+        write(target, students, Student::getEnrollments, courses, instructors);
+    }
+    
+    // Writes next to the target and renames into place, so a crash never leaves half a snapshot.
+    // enrollments copies one student's courses and grades together; StudentService passes
+    // a copy taken under the student's stripe.
+    public static void write(Path target, Collection<Student> students,
+                             Function<Student, Map<String, Grade>> enrollments, Collection<Course> courses,
+                             Collection<Instructor> instructors) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Encoder out = new Encoder(channel);
+            
+            out.putCount(instructors.size());
+            for (Instructor instructor : instructors) {
+                out.putPerson(instructor);
+                out.putRef(instructor.getDepartment());
+                Set<String> assigned = instructor.getAssignedCourses();
+                out.putCount(assigned.size());
+                for (String code : assigned) {
+                    out.putRef(code);
+                }
+            }
+            
+            out.putCount(courses.size());
+            for (Course course : courses) {
+                out.putRef(course.getCode());
+                out.putRef(course.getTitle());
+                out.putCount(course.getCredits());
+                out.putRef(course.getInstructorId());
+                out.putByte(course.getSemester() == null ? NONE : course.getSemester().ordinal());
+                out.putRef(course.getDepartment());
+                out.putCount(course.getCapacity());
+                out.putByte(course.isActive() ? 1 : 0);
+            }
+            
+            out.putCount(students.size());
+            List<Long> studentBlocks = new ArrayList<>();
+            int written = 0;
+            for (Student student : students) {
+                if (written++ % BLOCK_SIZE == 0) studentBlocks.add(out.offset());
+                
+                out.putPerson(student);
+                out.putRef(student.getRegNo());
+                Map<String, Grade> enrolled = enrollments.apply(student);
+                out.putCount(enrolled.size());
+                for (Map.Entry<String, Grade> entry : enrolled.entrySet()) {
+                    Grade grade = entry.getValue();
+                    out.putRef(entry.getKey());
+                    out.putByte(grade == null ? NONE : grade.ordinal());
+                }
+            }
+            if (written != students.size()) {
+                throw new IOException("Student collection changed while the snapshot was written");
+            }
+            
+            List<Long> dictionaryBlocks = out.putDictionary();
+            long indexOffset = out.offset();
+            out.putOffsets(out.dictionarySize(), dictionaryBlocks);
+            out.putOffsets(students.size(), studentBlocks);
+            int crc = out.finish();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(indexOffset).putInt(crc).putInt(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        RecordFile.syncDirectory(parent);
+    }
+    
+    // Memory-maps the file and rebuilds the entities; dictionary and student blocks are
+    // decoded in parallel. Restored enrollments book credits and take their course's seat.
+    public static Contents read(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a CCRM snapshot: " + source);
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot is too large to map: " + source);
+            
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getLong(0) != MAGIC) throw new IOException("Not a CCRM snapshot: " + source);
+            int version = map.getInt(8);
+            if (version > VERSION) {
+                throw new IOException("Snapshot version " + version + " is newer than supported version " + VERSION);
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(map.duplicate().position(HEADER_SIZE));
+            if ((int) crc.getValue() != map.getInt(24)) {
+                throw new IOException("Snapshot checksum mismatch: " + source);
+            }
+            return decode(map, (int) map.getLong(16));
+        }
+    }
+    
+    private static Contents decode(ByteBuffer map, int indexOffset) throws IOException {
+        ByteBuffer index = map.duplicate().position(indexOffset);
+        int dictionarySize = index.getInt();
+        long[] dictionaryBlocks = getOffsets(index);
+        int studentCount = index.getInt();
+        long[] studentBlocks = getOffsets(index);
+        
+        // Ref 0 is null; entry i of the dictionary is ref i + 1
+        String[] strings = new String[dictionarySize + 1];
+        IntStream.range(0, dictionaryBlocks.length).parallel().forEach(block -> {
+            ByteBuffer in = map.duplicate().position((int) dictionaryBlocks[block]);
+            int first = block * BLOCK_SIZE;
+            int last = Math.min(dictionarySize, first + BLOCK_SIZE);
+            byte[] scratch = new byte[64];
+            for (int i = first; i < last; i++) {
+                int length = getVarint(in);
+                if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                in.get(scratch, 0, length);
+                strings[i + 1] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        });
+        
+        ByteBuffer in = map.duplicate().position(HEADER_SIZE);
+        List<Instructor> instructors = new ArrayList<>();
+        for (int i = getVarint(in); i > 0; i--) {
+            String id = strings[getVarint(in)];
+            Name name = new Name(strings[getVarint(in)], strings[getVarint(in)]);
+            String email = strings[getVarint(in)];
+            boolean active = in.get() != 0;
+            Instructor instructor = new Instructor(id, name, email, strings[getVarint(in)]);
+            instructor.setActive(active);
+            for (int c = getVarint(in); c > 0; c--) {
+                instructor.assignCourse(strings[getVarint(in)]);
+            }
+            instructors.add(instructor);
+        }
+        
+        // Indexed by the code's dictionary ref so enrollments resolve without hashing
+        Course[] coursesByRef = new Course[strings.length];
+        List<Course> courses = new ArrayList<>();
+        for (int i = getVarint(in); i > 0; i--) {
+            int codeRef = getVarint(in);
+            Course course = new Course.Builder(strings[codeRef], strings[getVarint(in)])
+                .credits(getVarint(in))
+                .instructor(strings[getVarint(in)])
+                .semester(semesterOf(in.get()))
+                .department(strings[getVarint(in)])
+                .capacity(getVarint(in))
+                .build();
+            course.setActive(in.get() != 0);
+            coursesByRef[codeRef] = course;
+            courses.add(course);
+        }
+        
+        Student[] students = new Student[studentCount];
+        Grade[] grades = Grade.values();
+        try {
+            IntStream.range(0, studentBlocks.length).parallel().forEach(block -> {
+                ByteBuffer blockIn = map.duplicate().position((int) studentBlocks[block]);
+                int first = block * BLOCK_SIZE;
+                int last = Math.min(studentCount, first + BLOCK_SIZE);
+                for (int i = first; i < last; i++) {
+                    students[i] = decodeStudent(blockIn, strings, coursesByRef, grades);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        return new Contents(instructors, courses, Arrays.asList(students));
+    }
+    
+    private static Student decodeStudent(ByteBuffer in, String[] strings, Course[] coursesByRef, Grade[] grades) {
+        String id = strings[getVarint(in)];
+        Name name = new Name(strings[getVarint(in)], strings[getVarint(in)]);
+        String email = strings[getVarint(in)];
+        boolean active = in.get() != 0;
+        Student student = new Student(id, strings[getVarint(in)], name, email);
+        student.setActive(active);
+        
+        for (int c = getVarint(in); c > 0; c--) {
+            int codeRef = getVarint(in);
+            int grade = in.get() & 0xFF;
+            Course course = coursesByRef[codeRef];
+            // Every enrolled course is written with the students, so a missing one means the
+            // file is damaged; restoring without it would lose credits and seats
+            if (course == null) {
+                throw new UncheckedIOException(new IOException(
+                    "Snapshot enrolls " + id + " in unknown course " + strings[codeRef]));
+            }
+            student.enrollInCourse(course);
+            course.claimSeat();
+            if (grade != NONE) {
+                student.assignGrade(strings[codeRef], grades[grade]);
+            }
+        }
+        return student;
+    }
+    
+    private static Semester semesterOf(byte value) {
+        int ordinal = value & 0xFF;
+        return ordinal == NONE ? null : Semester.values()[ordinal];
+    }
+    
+    private static long[] getOffsets(ByteBuffer in) {
+        long[] offsets = new long[in.getInt()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = in.getLong();
+        }
+        return offsets;
+    }
+    
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+    
+    // Buffers output for the channel, checksumming each flushed buffer and collecting
+    // the string dictionary as references are written
+    private static final class Encoder {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private long flushed = HEADER_SIZE;
+        
+        Encoder(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(HEADER_SIZE);
+        }
+        
+        long offset() {
+            return flushed + buffer.position();
+        }
+        
+        void putPerson(Person person) throws IOException {
+            putRef(person.getId());
+            putRef(person.getName().getFirstName());
+            putRef(person.getName().getLastName());
+            putRef(person.getEmail());
+            putByte(person.isActive() ? 1 : 0);
+        }
+        
+        void putRef(String value) throws IOException {
+            if (value == null) {
+                putCount(0);
+                return;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                dictionary.add(value);
+                ref = dictionary.size();
+                refs.put(value, ref);
+            }
+            putCount(ref);
+        }
+        
+        void putCount(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+        
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+        
+        // Writes the dictionary entries and returns the offset of each block of them
+        List<Long> putDictionary() throws IOException {
+            List<Long> blocks = new ArrayList<>();
+            for (int i = 0; i < dictionary.size(); i++) {
+                if (i % BLOCK_SIZE == 0) blocks.add(offset());
+                byte[] bytes = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+                putCount(bytes.length);
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+            return blocks;
+        }
+        
+        // Entry count followed by the block offset table
+        void putOffsets(int entries, List<Long> offsets) throws IOException {
+            ensure(8 + offsets.size() * 8);
+            buffer.putInt(entries);
+            buffer.putInt(offsets.size());
+            for (long offset : offsets) {
+                buffer.putLong(offset);
+            }
+        }
+        
+        int dictionarySize() {
+            return dictionary.size();
+        }
+        
+        int finish() throws IOException {
+            flush();
+            return (int) crc.getValue();
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes);
+            }
+        }
+        
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            flushed += buffer.remaining();
+            RecordFile.writeFully(channel, buffer);
+            buffer.clear();
+        }
+    }
+}
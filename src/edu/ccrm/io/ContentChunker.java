@@ -0,0 +1,74 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+// Content-defined chunking with a gear rolling hash: a chunk ends where the hash of the
+// last few dozen bytes hits a fixed bit pattern, so inserting or deleting bytes only moves
+// the boundaries near the edit and the rest of the file still produces the same chunks.
+final class ContentChunker {
+    static final int MIN_SIZE = 2 * 1024;
+    static final int AVERAGE_SIZE = 8 * 1024;
+    static final int MAX_SIZE = 64 * 1024;
+    
+    // Top bits of the hash; the gear hash mixes the newest bytes into the high bits last
+    private static final long MASK = (long) (AVERAGE_SIZE - 1) << (64 - Integer.numberOfTrailingZeros(AVERAGE_SIZE));
+    private static final long[] GEAR = new long[256];
+    
+    static {
+        // Fixed seed: boundaries must be identical across runs for chunks to deduplicate
+        SplittableRandom random = new SplittableRandom(0x43434D52L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+    
+    @FunctionalInterface
+    interface ChunkHandler {
+        void chunk(byte[] data, int offset, int length) throws IOException;
+    }
+    
+    private ContentChunker() {}
+    
+    static void split(InputStream in, ChunkHandler handler) throws IOException {
+        byte[] buffer = new byte[MAX_SIZE * 4];
+        int start = 0;
+        int end = 0;
+        boolean eof = false;
+        
+        while (true) {
+            if (!eof && end - start < MAX_SIZE) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+                while (end < buffer.length) {
+                    int read = in.read(buffer, end, buffer.length - end);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    end += read;
+                }
+            }
+            if (start == end) return;
+            
+            int cut = boundary(buffer, start, end);
+            handler.chunk(buffer, start, cut - start);
+            start = cut;
+        }
+    }
+    
+    private static int boundary(byte[] data, int start, int end) {
+        int length = end - start;
+        if (length <= MIN_SIZE) return end;
+        
+        int limit = start + Math.min(length, MAX_SIZE);
+        long hash = 0;
+        for (int i = start + MIN_SIZE; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xFF];
+            if ((hash & MASK) == 0) return i + 1;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,105 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+
+// Row-level helpers shared by the CSV importers
+final class CsvRecords {
+    static final int STUDENT_FIELDS = 5;  // ID,RegNo,Name,Email,GPA
+    static final int COURSE_FIELDS = 6;   // Code,Title,Credits,Department,Semester,InstructorId
+    
+    private CsvRecords() {}
+    
+    // Splits one line into the reusable fields array without String.split or regex.
+    // Returns the number of fields found, or -1 if the line has more fields than the array holds.
+    static int splitLine(String line, String[] fields) {
+        int count = 0;
+        int length = line.length();
+        int pos = 0;
+        
+        while (pos <= length) {
+            if (count == fields.length) return -1;
+            
+            if (pos < length && line.charAt(pos) == '"') {
+                // Quoted field: "" is an escaped quote
+                StringBuilder value = new StringBuilder();
+                pos++;
+                while (pos < length) {
+                    char c = line.charAt(pos++);
+                    if (c == '"') {
+                        if (pos < length && line.charAt(pos) == '"') {
+                            value.append('"');
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(c);
+                    }
+                }
+                fields[count++] = value.toString();
+                pos++; // skip the comma after the closing quote
+            } else {
+                int comma = line.indexOf(',', pos);
+                int end = comma < 0 ? length : comma;
+                fields[count++] = line.substring(pos, end);
+                pos = end + 1;
+            }
+        }
+        return count;
+    }
+    
+    static boolean isHeader(String firstField) {
+        return firstField.equalsIgnoreCase("ID") || firstField.equalsIgnoreCase("Code");
+    }
+    
+    // Parses a non-negative int without allocating; returns -1 for invalid input
+    static int parseCredits(CharSequence text) {
+        int length = text.length();
+        if (length == 0 || length > 9) return -1;
+        
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    static Semester parseSemester(String text) {
+        for (Semester semester : Semester.values()) {
+            if (semester.name().equalsIgnoreCase(text)) return semester;
+        }
+        return null;
+    }
+    
+    // Exported names are "first last"; everything before the last space is the first name
+    static Name parseName(String fullName) {
+        String trimmed = fullName.trim();
+        int space = trimmed.lastIndexOf(' ');
+        if (space < 0) return new Name(trimmed, "");
+        return new Name(trimmed.substring(0, space), trimmed.substring(space + 1));
+    }
+    
+    static Student toStudent(String id, String regNo, String fullName, String email) {
+        if (id.isEmpty()) return null;
+        return new Student(id, regNo, parseName(fullName), email);
+    }
+    
+    static Course toCourse(String code, String title, String credits, String department,
+                           String semester, String instructorId) {
+        return toCourse(code, title, parseCredits(credits), department, parseSemester(semester), instructorId);
+    }
+    
+    static Course toCourse(String code, String title, int credits, String department,
+                           Semester semester, String instructorId) {
+        if (code.isEmpty() || credits < 0 || semester == null) return null;
+        
+        return new Course.Builder(code, title)
+            .credits(credits)
+            .department(department)
+            .semester(semester)
+            .instructor(instructorId)
+            .build();
+    }
+}
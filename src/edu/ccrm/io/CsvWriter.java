@@ -0,0 +1,124 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// Row-at-a-time CSV writer: each row is assembled in one reused StringBuilder and
+// handed to a buffered stream, so exports never hold more than a buffer in memory
+final class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    // Below this a cent is far wider than the gap between doubles; larger values, NaN and
+    // infinities go through %.2f itself
+    private static final double FIXED2_LIMIT = 1e9;
+    
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(128);
+    private boolean rowStarted;
+    
+    private CsvWriter(Writer out) {
+        this.out = out;
+    }
+    
+    static CsvWriter open(Path filePath, boolean gzip) throws IOException {
+        OutputStream stream = Files.newOutputStream(filePath, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+    
+    void header(String header) throws IOException {
+        out.write(header);
+        out.write('\n');
+    }
+    
+    // Quotes the value only when it contains a separator, quote or line break
+    CsvWriter field(String value) {
+        separator();
+        if (value == null) return this;
+        
+        if (needsQuoting(value)) {
+            row.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') row.append('"');
+                row.append(c);
+            }
+            row.append('"');
+        } else {
+            row.append(value);
+        }
+        return this;
+    }
+    
+    CsvWriter field(int value) {
+        separator();
+        row.append(value);
+        return this;
+    }
+    
+    // Same output as %.2f: half-up rounding of the shortest decimal form, so 0.285 gives 0.29
+    CsvWriter fixed2(double value) {
+        separator();
+        appendFixed2(row, value);
+        return this;
+    }
+    
+    void endRow() throws IOException {
+        row.append('\n');
+        out.append(row);
+        row.setLength(0);
+        rowStarted = false;
+    }
+    
+    // Rounds in whole cents without allocating. A half-cent boundary is a three-decimal
+    // number, so a double that parses from one has it as its shortest form and %.2f rounds
+    // it up; comparing against the boundary parsed the same way settles those ties exactly.
+    static void appendFixed2(StringBuilder target, double value) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < FIXED2_LIMIT)) {
+            target.append(String.format(Locale.ROOT, "%.2f", value));
+            return;
+        }
+        long cents = Math.round(magnitude * 100);
+        if (magnitude < (cents * 10 - 5) / 1000.0) {
+            cents--;
+        } else if (magnitude >= (cents * 10 + 5) / 1000.0) {
+            cents++;
+        }
+        
+        if (Double.doubleToRawLongBits(value) < 0) target.append('-');
+        int fraction = (int) (cents % 100);
+        target.append(cents / 100).append(fraction < 10 ? ".0" : ".").append(fraction);
+    }
+    
+    private void separator() {
+        if (rowStarted) row.append(',');
+        rowStarted = true;
+    }
+    
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
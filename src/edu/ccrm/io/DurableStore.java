@@ -0,0 +1,268 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.ChangeLog;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.ThreadPools;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Durable persistence for the in-memory services. Every mutation is appended to a
+// write-ahead log before the service applies it; on open the last binary snapshot is
+// loaded and the log replayed, and once the log passes the threshold the current state
+// is written as a new snapshot and the log emptied.
+// Every record sets state rather than adjusting it, so replaying a record twice is harmless.
+// That lets a snapshot overlap the first records of the log that follows it.
+public class DurableStore implements ChangeLog, Closeable {
+    public static final String LOG_FILE = "journal.log";
+    public static final String SNAPSHOT_FILE = "snapshot.dat";
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final WriteAheadLog log;
+    private final Path snapshotPath;
+    private final long compactionThreshold;
+    private final long recoveredRecords; // snapshot entities plus replayed log records
+    
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(ThreadPools.daemonThreads("journal-compactor"));
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ThreadLocal<JournalCodec.Encoder> encoders = ThreadLocal.withInitial(JournalCodec.Encoder::new);
+    
+    private DurableStore(StudentService studentService, CourseService courseService, WriteAheadLog log,
+                         Path snapshotPath, long compactionThreshold, long recoveredRecords) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.log = log;
+        this.snapshotPath = snapshotPath;
+        this.compactionThreshold = compactionThreshold;
+        this.recoveredRecords = recoveredRecords;
+    }
+    
+    // Restores the services from the directory and starts journaling their changes
+    public static DurableStore open(Path directory, FsyncPolicy policy, long compactionThreshold,
+                                    StudentService students, CourseService courses) throws IOException {
+        Files.createDirectories(directory);
+        students.setChangeLog(null);
+        courses.setChangeLog(null);
+        
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        long recovered = 0;
+        if (Files.exists(snapshotPath)) {
+            BinarySnapshot.Contents contents = BinarySnapshot.read(snapshotPath);
+            courses.saveAll(contents.getCourses());
+            students.restore(contents.getStudents());
+            recovered = contents.getEntityCount();
+        }
+        Replayer replayer = new Replayer(students, courses);
+        WriteAheadLog log = WriteAheadLog.open(directory.resolve(LOG_FILE), policy, replayer);
+        recovered += replayer.applied;
+        
+        DurableStore store = new DurableStore(students, courses, log, snapshotPath, compactionThreshold, recovered);
+        students.setChangeLog(store);
+        courses.setChangeLog(store);
+        return store;
+    }
+    
+    @Override
+    public void studentSaved(Student student) {
+        append(encoders.get().studentSaved(student));
+    }
+    
+    @Override
+    public void studentDeleted(String studentId) {
+        append(encoders.get().deleted(JournalCodec.STUDENT_DELETED, studentId));
+    }
+    
+    @Override
+    public void courseSaved(Course course) {
+        append(encoders.get().courseSaved(course));
+    }
+    
+    @Override
+    public void courseDeleted(String courseCode) {
+        append(encoders.get().deleted(JournalCodec.COURSE_DELETED, courseCode));
+    }
+    
+    @Override
+    public void enrolled(String studentId, String courseCode) {
+        append(encoders.get().enrollment(JournalCodec.ENROLLED, studentId, courseCode));
+    }
+    
+    @Override
+    public void unenrolled(String studentId, String courseCode) {
+        append(encoders.get().enrollment(JournalCodec.UNENROLLED, studentId, courseCode));
+    }
+    
+    @Override
+    public void gradeAssigned(String studentId, String courseCode, Grade grade) {
+        append(encoders.get().gradeAssigned(studentId, courseCode, grade));
+    }
+    
+    private void append(ByteBuffer payload) {
+        try {
+            log.append(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (log.size() > compactionThreshold && compactionQueued.compareAndSet(false, true)) {
+            compactor.execute(this::compactInBackground);
+        }
+    }
+    
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException e) {
+            System.err.println("Journal compaction failed: " + e.getMessage());
+        } finally {
+            compactionQueued.set(false);
+        }
+    }
+    
+    // Writes the current state as a snapshot and empties the log. Records are appended
+    // before their change is applied, so the services are quiesced first: every record the
+    // checkpoint drops is then already in the snapshot. The locks are taken in the order
+    // mutators use (service lock, then log), and Student::getEnrollments needs no stripe.
+    public void compact() throws IOException {
+        courseService.runQuiesced(() -> studentService.runQuiesced(() -> log.checkpoint(() ->
+            BinarySnapshot.write(snapshotPath, studentService.findAll(), courseService.findAll(),
+                Collections.emptyList()))));
+    }
+    
+    public long getLogSize() { return log.size(); }
+    public long getRecoveredRecords() { return recoveredRecords; }
+    public long getRecordCount() { return log.getRecordCount(); }
+    public long getSyncCount() { return log.getSyncCount(); }
+    
+    @Override
+    public void close() throws IOException {
+        studentService.setChangeLog(null);
+        courseService.setChangeLog(null);
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+    
+    // Applies records to services that are not journaling, so nothing is logged twice
+    private static final class Replayer implements RecordFile.RecordHandler {
+        private final StudentService students;
+        private final CourseService courses;
+        long applied;
+        
+        Replayer(StudentService students, CourseService courses) {
+            this.students = students;
+            this.courses = courses;
+        }
+        
+        @Override
+        public void accept(ByteBuffer in) throws IOException {
+            byte op = in.get();
+            switch (op) {
+                case JournalCodec.STUDENT_SAVED:
+                    restoreStudent(in);
+                    break;
+                case JournalCodec.STUDENT_DELETED:
+                    students.delete(JournalCodec.getString(in));
+                    break;
+                case JournalCodec.COURSE_SAVED:
+                    restoreCourse(in);
+                    break;
+                case JournalCodec.COURSE_DELETED:
+                    courses.delete(JournalCodec.getString(in));
+                    break;
+                case JournalCodec.ENROLLED: {
+                    String studentId = JournalCodec.getString(in);
+                    String courseCode = JournalCodec.getString(in);
+                    students.restoreEnrollment(studentId, requireCourse(courseCode));
+                    break;
+                }
+                case JournalCodec.UNENROLLED: {
+                    String studentId = JournalCodec.getString(in);
+                    String courseCode = JournalCodec.getString(in);
+                    students.unenrollStudent(studentId, requireCourse(courseCode));
+                    break;
+                }
+                case JournalCodec.GRADE_ASSIGNED:
+                    students.assignGrade(JournalCodec.getString(in), JournalCodec.getString(in), JournalCodec.getGrade(in));
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type " + op);
+            }
+            applied++;
+        }
+        
+        // Courses are journaled before anything that refers to them, so a missing one means
+        // the snapshot or log is damaged; replaying without it would lose credits and seats
+        private Course requireCourse(String courseCode) throws IOException {
+            Course course = courses.findById(courseCode);
+            if (course == null) {
+                throw new IOException("Journal refers to unknown course " + courseCode);
+            }
+            return course;
+        }
+        
+        // Existing objects are updated in place so their enrollments and seats survive
+        private void restoreStudent(ByteBuffer in) throws IOException {
+            String id = JournalCodec.getString(in);
+            String regNo = JournalCodec.getString(in);
+            String firstName = JournalCodec.getString(in);
+            String lastName = JournalCodec.getString(in);
+            String email = JournalCodec.getString(in);
+            boolean active = in.get() != 0;
+            
+            Student student = students.findById(id);
+            if (student == null) {
+                student = new Student(id, regNo, new Name(firstName, lastName), email);
+            } else {
+                student.setEmail(email);
+            }
+            student.setActive(active);
+            students.save(student);
+        }
+        
+        private void restoreCourse(ByteBuffer in) throws IOException {
+            String code = JournalCodec.getString(in);
+            String title = JournalCodec.getString(in);
+            int credits = in.getInt();
+            String instructorId = JournalCodec.getString(in);
+            Semester semester = JournalCodec.getSemester(in);
+            String department = JournalCodec.getString(in);
+            int capacity = in.getInt();
+            boolean active = in.get() != 0;
+            
+            Course course = courses.findById(code);
+            if (course == null) {
+                course = new Course.Builder(code, title)
+                    .credits(credits)
+                    .instructor(instructorId)
+                    .semester(semester)
+                    .department(department)
+                    .capacity(capacity)
+                    .build();
+            } else {
+                course.setTitle(title);
+                course.setCredits(credits);
+                course.setInstructorId(instructorId);
+                course.setSemester(semester);
+                course.setDepartment(department);
+                course.setCapacity(capacity);
+            }
+            course.setActive(active);
+            courses.save(course);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package edu.ccrm.io;
+
+// How the journal trades durability for throughput
+public enum FsyncPolicy {
+    ALWAYS,  // every record is synced on its own before the mutation returns
+    GROUP,   // concurrent mutations share one write and fsync; each returns once its record is synced
+    NONE     // records are handed to the OS, which decides when they reach the disk
+}
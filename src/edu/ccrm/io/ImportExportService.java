@@ -1,84 +1,294 @@
 package edu.ccrm.io;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.service.Persistable;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 public class ImportExportService {
     private static final String DATA_DIR = "data";
     private static final String BACKUP_DIR = "backups";
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final String GZIP_SUFFIX = ".gz";
+    
+    private static final OperationMetrics EXPORT = Metrics.operation("ImportExportService.exportData");
+    private static final OperationMetrics IMPORT = Metrics.operation("ImportExportService.importData");
+    private static final OperationMetrics BACKUP = Metrics.operation("ImportExportService.createBackup");
+    private static final OperationMetrics RESTORE = Metrics.operation("ImportExportService.restoreBackup");
+    private static final OperationMetrics FULL_BACKUP = Metrics.operation("ImportExportService.createFullBackup");
     
     // Static nested class for CSV operations
     public static class CSVHandler {
         public static void exportStudents(List<Student> students, Path filePath) throws IOException {
-            List<String> lines = students.stream()
-                .map(s -> String.format("%s,%s,%s,%s,%.2f", 
-                    s.getId(), s.getRegNo(), s.getName().getFullName(), 
-                    s.getEmail(), s.calculateGPA()))
-                .collect(Collectors.toList());
-            
-            lines.add(0, "ID,RegNo,Name,Email,GPA"); // Header
-            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            exportStudents(students, filePath, false);
+        }
+        
+        public static void exportStudents(Collection<Student> students, Path filePath, boolean gzip) throws IOException {
+            try (CsvWriter writer = CsvWriter.open(filePath, gzip)) {
+                writer.header("ID,RegNo,Name,Email,GPA");
+                for (Student s : students) {
+                    writer.field(s.getId())
+                        .field(s.getRegNo())
+                        .field(s.getName().getFullName())
+                        .field(s.getEmail())
+                        .fixed2(s.calculateGPA())
+                        .endRow();
+                }
+            }
         }
         
         public static void exportCourses(List<Course> courses, Path filePath) throws IOException {
-            List<String> lines = courses.stream()
-                .map(c -> String.format("%s,%s,%d,%s,%s,%s", 
-                    c.getCode(), c.getTitle(), c.getCredits(), 
-                    c.getDepartment(), c.getSemester(), c.getInstructorId()))
-                .collect(Collectors.toList());
-            
-            lines.add(0, "Code,Title,Credits,Department,Semester,InstructorId"); // Header
-            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            exportCourses(courses, filePath, false);
         }
-    }
-    
-    public void exportData(List<Student> students, List<Course> courses) throws IOException {
-        Path dataDir = Paths.get(DATA_DIR);
-        if (!Files.exists(dataDir)) {
-            Files.createDirectories(dataDir);
+        
+        public static void exportCourses(Collection<Course> courses, Path filePath, boolean gzip) throws IOException {
+            try (CsvWriter writer = CsvWriter.open(filePath, gzip)) {
+                writer.header("Code,Title,Credits,Department,Semester,InstructorId");
+                for (Course c : courses) {
+                    writer.field(c.getCode())
+                        .field(c.getTitle())
+                        .field(c.getCredits())
+                        .field(c.getDepartment())
+                        .field(c.getSemester() != null ? c.getSemester().name() : null)
+                        .field(c.getInstructorId())
+                        .endRow();
+                }
+            }
         }
         
-        CSVHandler.exportStudents(students, dataDir.resolve("students.csv"));
-        CSVHandler.exportCourses(courses, dataDir.resolve("courses.csv"));
+        public static ImportStats importStudents(Path filePath, Persistable<Student> target) throws IOException {
+            try (BufferedReader reader = openReader(filePath)) {
+                return importStudents(reader, target);
+            }
+        }
         
-        System.out.println("Data exported to " + dataDir.toAbsolutePath());
-    }
-    
-    public Path createBackup() throws IOException {
-        Path dataDir = Paths.get(DATA_DIR);
-        Path backupDir = Paths.get(BACKUP_DIR);
+        public static ImportStats importCourses(Path filePath, Persistable<Course> target) throws IOException {
+            try (BufferedReader reader = openReader(filePath)) {
+                return importCourses(reader, target);
+            }
+        }
         
-        if (!Files.exists(backupDir)) {
-            Files.createDirectories(backupDir);
+        // Reader variants for input that is not a file, such as stdin; the caller closes the reader
+        public static ImportStats importStudents(BufferedReader reader, Persistable<Student> target) throws IOException {
+            return importRows(reader, "Students", CsvRecords.STUDENT_FIELDS, target, Student::getId,
+                (fields, count) -> count < 4 ? null
+                    : CsvRecords.toStudent(fields[0], fields[1], fields[2], fields[3]));
         }
         
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        Path timestampedBackup = backupDir.resolve("backup_" + timestamp);
+        public static ImportStats importCourses(BufferedReader reader, Persistable<Course> target) throws IOException {
+            return importRows(reader, "Courses", CsvRecords.COURSE_FIELDS, target, Course::getCode,
+                (fields, count) -> count < CsvRecords.COURSE_FIELDS ? null
+                    : CsvRecords.toCourse(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5]));
+        }
         
-        if (Files.exists(dataDir)) {
-            copyDirectory(dataDir, timestampedBackup);
+        // Streams the input line by line and saves records in fixed-size batches, so memory
+        // use is bounded by the batch size rather than the input size. Rows whose id is
+        // already known are skipped; malformed rows are counted and ignored.
+        private static <T> ImportStats importRows(BufferedReader reader, String entity, int width,
+                                                  Persistable<T> target, Function<T, String> idOf,
+                                                  RowMapper<T> mapper) throws IOException {
+            ImportStats stats = new ImportStats(entity);
+            long start = System.nanoTime();
+            
+            String[] fields = new String[width];
+            Map<String, T> batch = new LinkedHashMap<>();
+            
+            String line;
+            boolean firstLine = true;
+            
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                
+                int count = CsvRecords.splitLine(line, fields);
+                if (firstLine) {
+                    firstLine = false;
+                    if (count > 0 && CsvRecords.isHeader(fields[0])) continue;
+                }
+                
+                T record = count < 0 ? null : mapper.map(fields, count);
+                if (record == null) {
+                    stats.recordRejected();
+                    continue;
+                }
+                
+                String id = idOf.apply(record);
+                if (batch.containsKey(id) || target.findById(id) != null) {
+                    stats.recordSkipped();
+                    continue;
+                }
+                
+                batch.put(id, record);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    flushBatch(batch, target, stats);
+                }
+            }
+            flushBatch(batch, target, stats);
+            
+            stats.setElapsedNanos(System.nanoTime() - start);
+            return stats;
+        }
+        
+        // Files ending in .gz are decompressed on the fly
+        public static BufferedReader openReader(Path filePath) throws IOException {
+            InputStream stream = Files.newInputStream(filePath);
+            if (filePath.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+                stream = new GZIPInputStream(stream, READ_BUFFER_SIZE);
+            }
+            return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
         }
         
-        return timestampedBackup;
+        private static <T> void flushBatch(Map<String, T> batch, Persistable<T> target,
+                                           ImportStats stats) throws IOException {
+            if (batch.isEmpty()) return;
+            target.saveAll(batch.values());
+            stats.recordImported(batch.size());
+            batch.clear();
+        }
     }
     
-    private void copyDirectory(Path source, Path target) throws IOException {
-        Files.walk(source).forEach(sourcePath -> {
-            try {
-                Path targetPath = target.resolve(source.relativize(sourcePath));
-                if (Files.isDirectory(sourcePath)) {
-                    Files.createDirectories(targetPath);
-                } else {
-                    Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(String[] fields, int count);
+    }
+    
+    public void exportData(List<Student> students, List<Course> courses) throws IOException {
+        exportData(students, courses, false);
+    }
+    
+    // The gzip mode writes students.csv.gz / courses.csv.gz, which the importer reads back directly
+    public void exportData(List<Student> students, List<Course> courses, boolean gzip) throws IOException {
+        long start = Metrics.start();
+        try {
+            Path dataDir = Paths.get(DATA_DIR);
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
             }
-        });
+            
+            String suffix = gzip ? GZIP_SUFFIX : "";
+            CSVHandler.exportStudents(students, dataDir.resolve("students.csv" + suffix), gzip);
+            CSVHandler.exportCourses(courses, dataDir.resolve("courses.csv" + suffix), gzip);
+            
+            // A copy left over in the other format would otherwise shadow this export on import
+            String staleSuffix = gzip ? "" : GZIP_SUFFIX;
+            Files.deleteIfExists(dataDir.resolve("students.csv" + staleSuffix));
+            Files.deleteIfExists(dataDir.resolve("courses.csv" + staleSuffix));
+            
+            System.out.println("Data exported to " + dataDir.toAbsolutePath());
+        } catch (IOException | RuntimeException e) {
+            EXPORT.failed();
+            throw e;
+        } finally {
+            EXPORT.record(start);
+        }
+    }
+    
+    public List<ImportStats> importData(Persistable<Student> students, Persistable<Course> courses) throws IOException {
+        return importData(students, courses, false);
+    }
+    
+    // Courses are loaded first so that enrollment data arriving later can resolve them.
+    // The mapped mode parses large files on all cores; the default mode streams with bounded memory.
+    public List<ImportStats> importData(Persistable<Student> students, Persistable<Course> courses,
+                                        boolean mapped) throws IOException {
+        long start = Metrics.start();
+        try {
+            Path dataDir = Paths.get(DATA_DIR);
+            Path coursesFile = findDataFile(dataDir, "courses.csv");
+            Path studentsFile = findDataFile(dataDir, "students.csv");
+            MappedCsvImporter mappedImporter = new MappedCsvImporter();
+            
+            // Compressed files can only be streamed, so they always take the streaming path
+            List<ImportStats> results = new ArrayList<>();
+            if (coursesFile != null) {
+                results.add(mapped && !isGzip(coursesFile) ? mappedImporter.importCourses(coursesFile, courses)
+                                                           : CSVHandler.importCourses(coursesFile, courses));
+            }
+            if (studentsFile != null) {
+                results.add(mapped && !isGzip(studentsFile) ? mappedImporter.importStudents(studentsFile, students)
+                                                            : CSVHandler.importStudents(studentsFile, students));
+            }
+            return results;
+        } catch (IOException | RuntimeException e) {
+            IMPORT.failed();
+            throw e;
+        } finally {
+            IMPORT.record(start);
+        }
+    }
+    
+    // When both the plain and the compressed file exist, the more recently written one wins
+    static Path findDataFile(Path dataDir, String fileName) throws IOException {
+        Path plain = dataDir.resolve(fileName);
+        Path compressed = dataDir.resolve(fileName + GZIP_SUFFIX);
+        if (!Files.exists(compressed)) return Files.exists(plain) ? plain : null;
+        if (!Files.exists(plain)) return compressed;
+        
+        return Files.getLastModifiedTime(compressed).compareTo(Files.getLastModifiedTime(plain)) > 0
+            ? compressed : plain;
+    }
+    
+    private static boolean isGzip(Path filePath) {
+        return filePath.getFileName().toString().endsWith(GZIP_SUFFIX);
+    }
+    
+    // Incremental backup of the data directory: only chunks the store lacks are written
+    public BackupStore.Report createBackup() throws IOException {
+        long start = Metrics.start();
+        try {
+            return getBackupStore().backup(Paths.get(DATA_DIR));
+        } catch (IOException | RuntimeException e) {
+            BACKUP.failed();
+            throw e;
+        } finally {
+            BACKUP.record(start);
+        }
+    }
+    
+    public BackupStore getBackupStore() {
+        return new BackupStore(Paths.get(BACKUP_DIR));
+    }
+    
+    public int restoreBackup(String backupId) throws IOException {
+        long start = Metrics.start();
+        try {
+            return getBackupStore().restore(backupId, Paths.get(DATA_DIR));
+        } catch (IOException | RuntimeException e) {
+            RESTORE.failed();
+            throw e;
+        } finally {
+            RESTORE.record(start);
+        }
+    }
+    
+    // Complete copy of the data directory into its own timestamped folder, copied in
+    // parallel and checksum-verified
+    public ParallelCopier.Report createFullBackup(ParallelCopier.ProgressListener listener) throws IOException {
+        long start = Metrics.start();
+        try {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            Path timestampedBackup = Paths.get(BACKUP_DIR).resolve("backup_" + timestamp);
+            return new ParallelCopier().copy(Paths.get(DATA_DIR), timestampedBackup, listener);
+        } catch (IOException | RuntimeException e) {
+            FULL_BACKUP.failed();
+            throw e;
+        } finally {
+            FULL_BACKUP.record(start);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package edu.ccrm.io;
+
+// Counters reported back by the CSV importers
+public class ImportStats {
+    private final String entity;
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private long elapsedNanos;
+    
+    public ImportStats(String entity) {
+        this.entity = entity;
+    }
+    
+    void recordImported(long count) { imported += count; }
+    void recordSkipped() { skipped++; }
+    void recordRejected() { rejected++; }
+    void setElapsedNanos(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+    
+    // Merges counters collected by another worker for the same entity
+    void merge(ImportStats other) {
+        imported += other.imported;
+        skipped += other.skipped;
+        rejected += other.rejected;
+    }
+    
+    public String getEntity() { return entity; }
+    public long getImported() { return imported; }
+    public long getSkipped() { return skipped; }
+    public long getRejected() { return rejected; }
+    public long getRowCount() { return imported + skipped + rejected; }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+    
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) return 0.0;
+        return getRowCount() * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d imported, %d skipped, %d rejected in %d ms (%.0f rows/sec)",
+            entity, imported, skipped, rejected, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,121 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary layout of journal records: a one-byte op code followed by the op's fields.
+// Strings are a length (-1 for null) plus UTF-8 bytes; enums are stored by ordinal.
+final class JournalCodec {
+    static final byte STUDENT_SAVED = 1;
+    static final byte STUDENT_DELETED = 2;
+    static final byte COURSE_SAVED = 3;
+    static final byte COURSE_DELETED = 4;
+    static final byte ENROLLED = 5;
+    static final byte UNENROLLED = 6;
+    static final byte GRADE_ASSIGNED = 7;
+    
+    private JournalCodec() {}
+    
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+    
+    static Semester getSemester(ByteBuffer in) {
+        byte ordinal = in.get();
+        return ordinal < 0 ? null : Semester.values()[ordinal];
+    }
+    
+    static Grade getGrade(ByteBuffer in) {
+        return Grade.values()[in.get()];
+    }
+    
+    // Encodes into one reused buffer; each returned payload is valid until the next call
+    static final class Encoder {
+        private ByteBuffer buffer = ByteBuffer.allocate(256);
+        
+        ByteBuffer studentSaved(Student student) {
+            begin(STUDENT_SAVED);
+            putString(student.getId());
+            putString(student.getRegNo());
+            putString(student.getName().getFirstName());
+            putString(student.getName().getLastName());
+            putString(student.getEmail());
+            putBoolean(student.isActive());
+            return finish();
+        }
+        
+        ByteBuffer courseSaved(Course course) {
+            begin(COURSE_SAVED);
+            putString(course.getCode());
+            putString(course.getTitle());
+            putInt(course.getCredits());
+            putString(course.getInstructorId());
+            putByte(course.getSemester() == null ? -1 : course.getSemester().ordinal());
+            putString(course.getDepartment());
+            putInt(course.getCapacity());
+            putBoolean(course.isActive());
+            return finish();
+        }
+        
+        ByteBuffer deleted(byte op, String id) {
+            begin(op);
+            putString(id);
+            return finish();
+        }
+        
+        ByteBuffer enrollment(byte op, String studentId, String courseCode) {
+            begin(op);
+            putString(studentId);
+            putString(courseCode);
+            return finish();
+        }
+        
+        ByteBuffer gradeAssigned(String studentId, String courseCode, Grade grade) {
+            begin(GRADE_ASSIGNED);
+            putString(studentId);
+            putString(courseCode);
+            putByte(grade.ordinal());
+            return finish();
+        }
+        
+        private void begin(byte op) {
+            buffer.clear();
+            buffer.put(op);
+        }
+        
+        private ByteBuffer finish() {
+            buffer.flip();
+            return buffer;
+        }
+        
+        private void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer = RecordFile.ensureCapacity(buffer, 4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        
+        private void putInt(int value) {
+            buffer = RecordFile.ensureCapacity(buffer, 4);
+            buffer.putInt(value);
+        }
+        
+        private void putByte(int value) {
+            buffer = RecordFile.ensureCapacity(buffer, 1);
+            buffer.put((byte) value);
+        }
+        
+        private void putBoolean(boolean value) {
+            putByte(value ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.Persistable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+// Bulk CSV loader for very large files: the file is memory-mapped, cut into chunks at
+// line boundaries and each chunk is parsed on a ForkJoin pool into its own buffer.
+// Field bytes stay in the mapping until a decoder asks for a String.
+public class MappedCsvImporter {
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 256L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    private final ForkJoinPool pool;
+    
+    public MappedCsvImporter() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public MappedCsvImporter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    public ImportStats importStudents(Path filePath, Persistable<Student> target) throws IOException {
+        return importFile(filePath, "Students", CsvRecords.STUDENT_FIELDS, target, Student::getId,
+            fields -> fields.count() < 4 ? null
+                : CsvRecords.toStudent(fields.string(0), fields.string(1), fields.string(2), fields.string(3)));
+    }
+    
+    public ImportStats importCourses(Path filePath, Persistable<Course> target) throws IOException {
+        return importFile(filePath, "Courses", CsvRecords.COURSE_FIELDS, target, Course::getCode,
+            fields -> fields.count() < CsvRecords.COURSE_FIELDS ? null
+                : CsvRecords.toCourse(fields.string(0), fields.string(1), fields.intValue(2),
+                    fields.string(3), fields.semester(4), fields.string(5)));
+    }
+    
+    private <T> ImportStats importFile(Path filePath, String entity, int width, Persistable<T> target,
+                                       Function<T, String> idOf, RowDecoder<T> decoder) throws IOException {
+        ImportStats stats = new ImportStats(entity);
+        long start = System.nanoTime();
+        
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            List<long[]> chunks = splitAtLineBoundaries(channel);
+            
+            List<ForkJoinTask<ChunkResult<T>>> tasks = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                boolean firstChunk = chunk[0] == 0;
+                tasks.add(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1], firstChunk, width, decoder)));
+            }
+            
+            // Merge in file order so the first occurrence of a duplicate id wins
+            for (ForkJoinTask<ChunkResult<T>> task : tasks) {
+                ChunkResult<T> result;
+                try {
+                    result = task.join();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                stats.merge(result.stats);
+                mergeChunk(result.records, target, idOf, stats);
+            }
+        }
+        
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+    
+    private <T> void mergeChunk(List<T> records, Persistable<T> target, Function<T, String> idOf,
+                                ImportStats stats) throws IOException {
+        Map<String, T> fresh = new LinkedHashMap<>();
+        for (T record : records) {
+            String id = idOf.apply(record);
+            if (fresh.containsKey(id) || target.findById(id) != null) {
+                stats.recordSkipped();
+            } else {
+                fresh.put(id, record);
+            }
+        }
+        target.saveAll(fresh.values());
+        stats.recordImported(fresh.size());
+    }
+    
+    private List<long[]> splitAtLineBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+        
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            if (end < size) {
+                end = nextLineStart(channel, end, size);
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line starting near offset " + start + " is too long to map");
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+    
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) break;
+            
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    private static <T> ChunkResult<T> parseChunk(FileChannel channel, long start, long end, boolean firstChunk,
+                                                 int width, RowDecoder<T> decoder) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        ChunkResult<T> result = new ChunkResult<>();
+        LineFields fields = new LineFields(buffer, width);
+        int limit = buffer.limit();
+        int pos = 0;
+        boolean checkHeader = firstChunk;
+        
+        while (pos < limit) {
+            int lineEnd = fields.scan(pos, limit);
+            boolean blank = lineEnd == pos || (lineEnd == pos + 1 && buffer.get(pos) == '\r');
+            pos = lineEnd + 1;
+            if (blank) continue;
+            
+            if (checkHeader) {
+                checkHeader = false;
+                if (CsvRecords.isHeader(fields.string(0))) continue;
+            }
+            
+            T record = fields.overflow() ? null : decoder.decode(fields);
+            if (record == null) {
+                result.stats.recordRejected();
+            } else {
+                result.records.add(record);
+            }
+        }
+        return result;
+    }
+    
+    @FunctionalInterface
+    private interface RowDecoder<T> {
+        T decode(LineFields fields);
+    }
+    
+    private static final class ChunkResult<T> {
+        final List<T> records = new ArrayList<>();
+        final ImportStats stats = new ImportStats("chunk");
+    }
+    
+    // Field offsets for the current line; values are decoded lazily from the mapped bytes
+    private static final class LineFields {
+        private final ByteBuffer buffer;
+        private final int[] starts;
+        private final int[] ends;
+        private byte[] scratch = new byte[256];
+        private int count;
+        private boolean overflow;
+        
+        LineFields(ByteBuffer buffer, int width) {
+            this.buffer = buffer;
+            this.starts = new int[width];
+            this.ends = new int[width];
+        }
+        
+        // Records field boundaries from pos up to the next newline; returns the newline index
+        int scan(int pos, int limit) {
+            count = 0;
+            overflow = false;
+            boolean quoted = false;
+            int fieldStart = pos;
+            int i = pos;
+            
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == ',' && !quoted) {
+                    addField(fieldStart, i);
+                    fieldStart = i + 1;
+                } else if (b == '\n') {
+                    break;
+                }
+            }
+            
+            int lineEnd = (i > fieldStart && buffer.get(i - 1) == '\r') ? i - 1 : i;
+            addField(fieldStart, lineEnd);
+            return i;
+        }
+        
+        private void addField(int start, int end) {
+            if (count == starts.length) {
+                overflow = true;
+                return;
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+        
+        int count() { return count; }
+        boolean overflow() { return overflow; }
+        
+        String string(int index) {
+            int start = starts[index];
+            int end = ends[index];
+            int length = 0;
+            
+            if (end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"') {
+                ensureScratch(end - start);
+                for (int i = start + 1; i < end - 1; i++) {
+                    byte b = buffer.get(i);
+                    scratch[length++] = b;
+                    if (b == '"') i++; // "" is an escaped quote
+                }
+            } else {
+                ensureScratch(end - start);
+                for (int i = start; i < end; i++) {
+                    scratch[length++] = buffer.get(i);
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        
+        // Parses a non-negative int straight from the bytes; -1 for invalid input
+        int intValue(int index) {
+            int start = starts[index];
+            int end = ends[index];
+            if (end == start || end - start > 9) return -1;
+            
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') return -1;
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+        
+        Semester semester(int index) {
+            int start = starts[index];
+            int length = ends[index] - start;
+            
+            for (Semester semester : Semester.values()) {
+                String name = semester.name();
+                if (name.length() != length) continue;
+                
+                boolean match = true;
+                for (int i = 0; i < length && match; i++) {
+                    match = Character.toUpperCase((char) buffer.get(start + i)) == name.charAt(i);
+                }
+                if (match) return semester;
+            }
+            return null;
+        }
+        
+        private void ensureScratch(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+        }
+    }
+}
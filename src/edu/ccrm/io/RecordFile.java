@@ -0,0 +1,108 @@
+package edu.ccrm.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Journal file framing: a 4-byte magic, then records of [length][CRC32][payload].
+// Reading stops at the first record that is cut short or fails its checksum, which is
+// exactly what a crash in the middle of an append leaves behind.
+final class RecordFile {
+    static final int MAGIC = 0x43434A31; // "CCJ1"
+    static final int HEADER_SIZE = 4;
+    static final int FRAME_OVERHEAD = 8;
+    static final int MAX_RECORD_SIZE = 1 << 24;
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(ByteBuffer payload) throws IOException;
+    }
+    
+    private RecordFile() {}
+    
+    // Appends one framed record; payload is read from its position to its limit
+    static void frame(ByteBuffer target, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        target.putInt(payload.remaining());
+        target.putInt((int) crc.getValue());
+        target.put(payload);
+    }
+    
+    // Feeds every intact record to the handler; returns the offset just past the last one,
+    // or 0 when the file is too short to hold a header
+    static long read(Path path, RecordHandler handler) throws IOException {
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE))) {
+            int magic;
+            try {
+                magic = in.readInt();
+            } catch (EOFException e) {
+                return 0;
+            }
+            if (magic != MAGIC) {
+                throw new IOException("Not a CCRM journal file: " + path);
+            }
+            
+            long position = HEADER_SIZE;
+            byte[] payload = new byte[256];
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_SIZE) return position;
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return position;
+                }
+                
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) return position;
+                
+                handler.accept(ByteBuffer.wrap(payload, 0, length));
+                position += FRAME_OVERHEAD + length;
+            }
+        }
+    }
+    
+    // Makes a rename durable; not every platform lets a directory be opened, so this is best effort
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the rename itself has already happened
+        }
+    }
+    
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) return buffer;
+        
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
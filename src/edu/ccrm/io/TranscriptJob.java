@@ -0,0 +1,255 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Term-end transcripts for every student, rendered in parallel on a ForkJoin pool. Each
+// worker thread reuses one text buffer and one byte buffer. Output is either one file per
+// student or a series of zip archives of archiveChunkSize students each. Every file or
+// archive is written under a temporary name and renamed when complete, so after a crash
+// a rerun skips whatever already exists and redoes only the unfinished part. Students are
+// processed in ID order, so archive chunks line up between runs over the same students.
+public class TranscriptJob {
+    public static final int DEFAULT_ARCHIVE_CHUNK_SIZE = 1000;
+    private static final int STUDENTS_PER_TASK = 64;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final Path outputDirectory;
+    private final ForkJoinPool pool;
+    private final TranscriptRenderer renderer = new TranscriptRenderer();
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+    
+    public TranscriptJob(Path outputDirectory) {
+        this(outputDirectory, ForkJoinPool.commonPool());
+    }
+    
+    public TranscriptJob(Path outputDirectory, ForkJoinPool pool) {
+        this.outputDirectory = outputDirectory;
+        this.pool = pool;
+    }
+    
+    public Report writeFiles(Collection<Student> students, Map<String, Course> courses) throws IOException {
+        List<Student> ordered = inIdOrder(students);
+        Report report = new Report();
+        Files.createDirectories(outputDirectory);
+        
+        run(new FileTask(ordered, 0, ordered.size(), courses, report));
+        report.elapsedNanos = System.nanoTime() - report.startNanos;
+        return report;
+    }
+    
+    public Report writeArchives(Collection<Student> students, Map<String, Course> courses,
+                                int archiveChunkSize) throws IOException {
+        List<Student> ordered = inIdOrder(students);
+        Report report = new Report();
+        Files.createDirectories(outputDirectory);
+        
+        List<RecursiveAction> chunks = new ArrayList<>();
+        for (int start = 0, chunk = 0; start < ordered.size(); start += archiveChunkSize, chunk++) {
+            List<Student> members = ordered.subList(start, Math.min(ordered.size(), start + archiveChunkSize));
+            Path archive = outputDirectory.resolve(String.format("transcripts-%05d.zip", chunk));
+            chunks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    writeArchive(archive, members, courses, report);
+                }
+            });
+        }
+        run(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(chunks);
+            }
+        });
+        report.elapsedNanos = System.nanoTime() - report.startNanos;
+        return report;
+    }
+    
+    private void run(RecursiveAction task) throws IOException {
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private final class FileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<Student> students;
+        private final int from;
+        private final int to;
+        private final Map<String, Course> courses;
+        private final Report report;
+        
+        FileTask(List<Student> students, int from, int to, Map<String, Course> courses, Report report) {
+            this.students = students;
+            this.from = from;
+            this.to = to;
+            this.courses = courses;
+            this.report = report;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > STUDENTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FileTask(students, from, middle, courses, report),
+                    new FileTask(students, middle, to, courses, report));
+                return;
+            }
+            
+            Buffer buffer = buffers.get();
+            for (int i = from; i < to; i++) {
+                Student student = students.get(i);
+                Path target = outputDirectory.resolve(fileName(student));
+                if (Files.exists(target)) {
+                    report.skipped.increment();
+                    continue;
+                }
+                try {
+                    ByteBuffer bytes = buffer.render(student, courses);
+                    Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+                    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        report.bytes.add(bytes.remaining());
+                        RecordFile.writeFully(channel, bytes);
+                    }
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                report.written.increment();
+                report.files.increment();
+            }
+        }
+    }
+    
+    private void writeArchive(Path archive, List<Student> members, Map<String, Course> courses, Report report) {
+        if (Files.exists(archive)) {
+            report.skipped.add(members.size());
+            return;
+        }
+        
+        Buffer buffer = buffers.get();
+        Path temp = archive.resolveSibling(archive.getFileName() + TEMP_SUFFIX);
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                for (Student student : members) {
+                    ByteBuffer bytes = buffer.render(student, courses);
+                    zip.putNextEntry(new ZipEntry(fileName(student)));
+                    zip.write(bytes.array(), 0, bytes.limit());
+                    zip.closeEntry();
+                }
+            }
+            report.bytes.add(Files.size(temp));
+            Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        report.written.add(members.size());
+        report.files.increment();
+    }
+    
+    private static List<Student> inIdOrder(Collection<Student> students) {
+        List<Student> ordered = new ArrayList<>(students);
+        ordered.sort(Comparator.comparing(Student::getId));
+        return ordered;
+    }
+    
+    // IDs come from user input, so anything outside a safe file name set is escaped as '_'
+    // and four hex digits. '_' itself is escaped too, so distinct IDs never share a file.
+    static String fileName(Student student) {
+        StringBuilder name = new StringBuilder("transcript_");
+        String id = student.getId();
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean safe = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-';
+            if (safe) {
+                name.append(c);
+            } else {
+                name.append('_').append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                    .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+        return name.append(".txt").toString();
+    }
+    
+    // Per-thread render target: the text buffer and its UTF-8 encoding are both reused
+    private final class Buffer {
+        private final StringBuilder text = new StringBuilder(2048);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer bytes = ByteBuffer.allocate(4096);
+        
+        ByteBuffer render(Student student, Map<String, Course> courses) throws IOException {
+            text.setLength(0);
+            renderer.render(student, courses::get, text);
+            
+            CharBuffer chars = CharBuffer.wrap(text);
+            encoder.reset();
+            bytes.clear();
+            while (true) {
+                CoderResult result = chars.hasRemaining() ? encoder.encode(chars, bytes, true) : encoder.flush(bytes);
+                if (result.isOverflow()) {
+                    ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+                    bytes.flip();
+                    bytes = larger.put(bytes);
+                } else if (result.isError()) {
+                    result.throwException();
+                } else if (!chars.hasRemaining()) {
+                    if (encoder.flush(bytes).isUnderflow()) break;
+                }
+            }
+            bytes.flip();
+            return bytes;
+        }
+    }
+    
+    public static class Report {
+        private final long startNanos = System.nanoTime();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private long elapsedNanos;
+        
+        public long getStudentsWritten() { return written.sum(); }
+        public long getStudentsSkipped() { return skipped.sum(); }
+        public long getFilesWritten() { return files.sum(); }
+        public long getBytesWritten() { return bytes.sum(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+        
+        public double getStudentsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : written.sum() / (elapsedNanos / 1e9);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d transcripts written (%d already done) in %d files, %d bytes, "
+                    + "%.1f ms, %.0f students/sec", getStudentsWritten(), getStudentsSkipped(),
+                getFilesWritten(), getBytesWritten(), elapsedNanos / 1e6, getStudentsPerSecond());
+        }
+    }
+}
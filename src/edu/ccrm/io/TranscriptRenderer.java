@@ -0,0 +1,63 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Plain-text transcript, appended to a caller-owned buffer so batch jobs can reuse one
+// per thread. Courses are listed by code; the GPA is computed from the same copy of the
+// grades that is printed, so the two always agree.
+public class TranscriptRenderer {
+    private static final String RULE = "=".repeat(50);
+    
+    public void render(Student student, Function<String, Course> courses, StringBuilder out) {
+        Map<String, Grade> grades = new TreeMap<>(student.getCourseGrades());
+        double gpa = 0.0;
+        for (Grade grade : grades.values()) {
+            gpa += grade.getGradePoint();
+        }
+        gpa = grades.isEmpty() ? 0.0 : gpa / grades.size();
+        
+        out.append(RULE).append('\n')
+            .append("OFFICIAL TRANSCRIPT\n")
+            .append(RULE).append('\n')
+            .append("=== Student Profile ===\n")
+            .append("ID: ").append(student.getId()).append('\n')
+            .append("Registration No: ").append(student.getRegNo()).append('\n')
+            .append("Name: ").append(student.getName().getFullName()).append('\n')
+            .append("Email: ").append(student.getEmail()).append('\n')
+            .append("Enrollment Date: ").append(student.getEnrollmentDate()).append('\n')
+            .append("Enrolled Courses: ").append(student.getEnrolledCourseCount()).append('\n')
+            .append("GPA: ");
+        CsvWriter.appendFixed2(out, gpa);
+        out.append("\n\nCourse Grades:\n");
+        
+        for (Map.Entry<String, Grade> entry : grades.entrySet()) {
+            String code = entry.getKey();
+            Grade grade = entry.getValue();
+            Course course = courses.apply(code);
+            if (course == null) {
+                out.append(code).append(": ").append(grade).append('\n');
+                continue;
+            }
+            pad(out, code, 10).append(' ');
+            pad(out, course.getTitle(), 30).append(' ')
+                .append(course.getCredits()).append(" credits Grade: ").append(grade)
+                .append(" (").append(Math.round(grade.getGradePoint() * 10) / 10.0).append(")\n");
+        }
+        
+        out.append("\nOverall GPA: ");
+        CsvWriter.appendFixed2(out, gpa);
+        out.append('\n').append(RULE).append('\n');
+    }
+    
+    // Left-justified like %-Ns: longer values are not cut
+    private static StringBuilder pad(StringBuilder out, String value, int width) {
+        out.append(value);
+        for (int i = value == null ? 4 : value.length(); i < width; i++) {
+            out.append(' ');
+        }
+        return out;
+    }
+}
@@ -0,0 +1,192 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+// Append-only journal file. Under GROUP, appenders copy their record into a shared buffer
+// and the first one to reach the sync lock writes and fsyncs everything buffered so far;
+// the others find their record already durable when they get the lock.
+final class WriteAheadLog implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE); // guarded by appendLock
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);   // guarded by syncLock
+    private long appendedSeq;                                      // guarded by appendLock
+    private volatile long durableSeq;
+    private volatile long size;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    
+    private final LongAdder records = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    
+    private WriteAheadLog(FileChannel channel, FsyncPolicy policy, long size) {
+        this.channel = channel;
+        this.policy = policy;
+        this.size = size;
+    }
+    
+    // Replays the intact records through the handler, cuts off any torn tail and
+    // positions the file for appending
+    static WriteAheadLog open(Path path, FsyncPolicy policy, RecordFile.RecordHandler replay) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long validEnd = channel.size() > 0 ? RecordFile.read(path, replay) : 0;
+            if (validEnd < RecordFile.HEADER_SIZE) {
+                channel.truncate(0);
+                RecordFile.writeFully(channel, ByteBuffer.allocate(RecordFile.HEADER_SIZE)
+                    .putInt(RecordFile.MAGIC).flip());
+                validEnd = RecordFile.HEADER_SIZE;
+            } else if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+            }
+            channel.force(true);
+            channel.position(validEnd);
+            return new WriteAheadLog(channel, policy, validEnd);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    // Returns once the record is as durable as the policy promises
+    void append(ByteBuffer payload) throws IOException {
+        int frameSize = RecordFile.FRAME_OVERHEAD + payload.remaining();
+        long seq;
+        synchronized (appendLock) {
+            checkUsable();
+            if (policy != FsyncPolicy.GROUP) {
+                // pending is only a staging buffer here; nothing is left in it between calls
+                pending = RecordFile.ensureCapacity(pending, frameSize);
+                RecordFile.frame(pending, payload);
+                pending.flip();
+                try {
+                    RecordFile.writeFully(channel, pending);
+                    if (policy == FsyncPolicy.ALWAYS) {
+                        channel.force(false);
+                        syncs.increment();
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    pending.clear();
+                }
+                size += frameSize;
+                records.increment();
+                return;
+            }
+            
+            pending = RecordFile.ensureCapacity(pending, frameSize);
+            RecordFile.frame(pending, payload);
+            size += frameSize;
+            records.increment();
+            seq = ++appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+    
+    private void awaitDurable(long seq) throws IOException {
+        synchronized (syncLock) {
+            if (durableSeq >= seq) return;
+            checkUsable();
+            
+            ByteBuffer batch;
+            long batchEnd;
+            synchronized (appendLock) {
+                batch = pending;
+                pending = spare;
+                batchEnd = appendedSeq;
+            }
+            writeAndSync(batch);
+            spare = batch;
+            durableSeq = batchEnd;
+        }
+    }
+    
+    private void writeAndSync(ByteBuffer batch) throws IOException {
+        try {
+            batch.flip();
+            RecordFile.writeFully(channel, batch);
+            channel.force(false);
+            syncs.increment();
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            batch.clear();
+        }
+    }
+    
+    @FunctionalInterface
+    interface Checkpoint {
+        void run() throws IOException;
+    }
+    
+    // Runs the action with appends held off and everything already appended on disk,
+    // then empties the log. Used to fold the log into a snapshot.
+    void checkpoint(Checkpoint snapshot) throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                checkUsable();
+                if (pending.position() > 0) {
+                    writeAndSync(pending);
+                }
+                durableSeq = appendedSeq;
+                
+                snapshot.run();
+                try {
+                    channel.truncate(RecordFile.HEADER_SIZE);
+                    channel.position(RecordFile.HEADER_SIZE);
+                    channel.force(true);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                size = RecordFile.HEADER_SIZE;
+            }
+        }
+    }
+    
+    private void checkUsable() throws IOException {
+        if (closed) throw new IOException("Journal is closed");
+        if (failure != null) throw new IOException("Journal failed on an earlier write", failure);
+    }
+    
+    long size() { return size; }
+    long getRecordCount() { return records.sum(); }
+    long getSyncCount() { return syncs.sum(); }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (closed) return;
+                closed = true;
+                try {
+                    if (failure == null) {
+                        if (pending.position() > 0) {
+                            writeAndSync(pending);
+                        } else {
+                            channel.force(true);
+                        }
+                        durableSeq = appendedSeq;
+                    }
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import java.io.IOException;
+
+// Receives every state change the services make, before it is applied and in order for
+// each entity. A change whose call throws is not applied, so the services never hold state
+// the log lacks. Used by the durable store to journal mutations; all methods default to no-ops.
+public interface ChangeLog {
+    ChangeLog NONE = new ChangeLog() {};
+    
+    interface Action {
+        void run() throws IOException;
+    }
+    
+    default void studentSaved(Student student) {}
+    default void studentDeleted(String studentId) {}
+    default void courseSaved(Course course) {}
+    default void courseDeleted(String courseCode) {}
+    default void enrolled(String studentId, String courseCode) {}
+    default void unenrolled(String studentId, String courseCode) {}
+    default void gradeAssigned(String studentId, String courseCode, Grade grade) {}
+}
@@ -0,0 +1,104 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+
+// Per-course grade histogram, mean grade point and fail rate in one parallel pass over
+// the GradeStore columns. Each segment's rows are split into blocks, each block counts into
+// its own course x grade table, and the tables are summed. Everything else derives from the counts.
+public class CourseAnalytics {
+    private static final Grade[] GRADES = Grade.values();
+    private static final int ROWS_PER_BLOCK = 1 << 16;
+    
+    public Report compute(GradeStore store) {
+        return store.scan(columns -> {
+            int width = GRADES.length;
+            List<int[]> blocks = new ArrayList<>(); // {segment, block}
+            for (int segment = 0; segment < columns.segments.length; segment++) {
+                int count = (columns.segments[segment].rows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+                for (int block = 0; block < count; block++) {
+                    blocks.add(new int[] {segment, block});
+                }
+            }
+            long[] counts = blocks.parallelStream().collect(
+                () -> new long[columns.courseCount * width],
+                (table, block) -> {
+                    GradeStore.Segment segment = columns.segments[block[0]];
+                    int[] courses = segment.courses;
+                    byte[] grades = segment.grades;
+                    int end = Math.min(segment.rows, (block[1] + 1) * ROWS_PER_BLOCK);
+                    for (int row = block[1] * ROWS_PER_BLOCK; row < end; row++) {
+                        table[courses[row] * width + grades[row]]++;
+                    }
+                },
+                (table, other) -> {
+                    for (int i = 0; i < table.length; i++) table[i] += other[i];
+                });
+            
+            Map<String, CourseSummary> summaries = new TreeMap<>();
+            for (int course = 0; course < columns.courseCount; course++) {
+                long[] histogram = Arrays.copyOfRange(counts, course * width, (course + 1) * width);
+                CourseSummary summary = new CourseSummary(columns.courseCodes[course], histogram);
+                if (summary.getGradeCount() > 0) {
+                    summaries.put(summary.getCourseCode(), summary);
+                }
+            }
+            // The version of the copy the counts were taken from
+            return new Report(store, columns.version, columns.rows, summaries);
+        });
+    }
+    
+    public static class Report {
+        private final GradeStore source;
+        private final long version;
+        private final long gradeCount;
+        private final Map<String, CourseSummary> courses;
+        
+        Report(GradeStore source, long version, long gradeCount, Map<String, CourseSummary> courses) {
+            this.source = source;
+            this.version = version;
+            this.gradeCount = gradeCount;
+            this.courses = courses;
+        }
+        
+        // True while no grade in the store has changed since this report was built
+        public boolean isCurrent(GradeStore store) {
+            return store == source && store.getVersion() == version;
+        }
+        
+        public long getGradeCount() { return gradeCount; }
+        public CourseSummary get(String courseCode) { return courses.get(courseCode); }
+        
+        // Courses with at least one grade, by code
+        public Collection<CourseSummary> getCourses() { return Collections.unmodifiableCollection(courses.values()); }
+    }
+    
+    public static class CourseSummary {
+        private final String courseCode;
+        private final long[] histogram; // indexed by Grade ordinal
+        private final long gradeCount;
+        private final double mean;
+        
+        CourseSummary(String courseCode, long[] histogram) {
+            this.courseCode = courseCode;
+            this.histogram = histogram;
+            long count = 0;
+            double points = 0;
+            for (Grade grade : GRADES) {
+                count += histogram[grade.ordinal()];
+                points += histogram[grade.ordinal()] * grade.getGradePoint();
+            }
+            this.gradeCount = count;
+            this.mean = count == 0 ? 0.0 : points / count;
+        }
+        
+        public String getCourseCode() { return courseCode; }
+        public long getGradeCount() { return gradeCount; }
+        public long getCount(Grade grade) { return histogram[grade.ordinal()]; }
+        public double getMeanGradePoint() { return mean; }
+        
+        public double getFailRate() {
+            return gradeCount == 0 ? 0.0 : (double) histogram[Grade.F.ordinal()] / gradeCount;
+        }
+    }
+}
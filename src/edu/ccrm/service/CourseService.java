@@ -1,63 +1,254 @@
 package edu.ccrm.service;
 
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
 import edu.ccrm.util.ValidationException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class CourseService implements Persistable<Course>, Searchable<Course> {
+    private static final OperationMetrics SAVE = Metrics.operation("CourseService.save");
+    private static final OperationMetrics FIND_BY_ID = Metrics.operation("CourseService.findById");
+    private static final OperationMetrics FIND_ALL = Metrics.operation("CourseService.findAll");
+    private static final OperationMetrics DELETE = Metrics.operation("CourseService.delete");
+    private static final OperationMetrics SEARCH = Metrics.operation("CourseService.search");
+    private static final OperationMetrics FILTER_BY = Metrics.operation("CourseService.filterBy");
+    private static final OperationMetrics WRITE_SNAPSHOT = Metrics.operation("CourseService.writeSnapshot");
+    private static final OperationMetrics ANALYTICS = Metrics.operation("CourseService.getCourseAnalytics");
+    
     private Map<String, Course> courses;
     
+    // Secondary indexes for filterBy, refreshed on every save. The indexed instructor and
+    // semester are remembered per code so a re-saved course can be moved to its new keys.
+    // Saves are serialized on indexLock; lookups read the concurrent sets without locking.
+    private final Map<String, Set<String>> byInstructor = new ConcurrentHashMap<>();
+    private final Map<Semester, Set<String>> bySemester = new EnumMap<>(Semester.class);
+    private final NGramIndex departmentIndex = new NGramIndex();
+    private final Map<String, String> indexedInstructor = new HashMap<>();
+    private final Map<String, Semester> indexedSemester = new HashMap<>();
+    private final Object indexLock = new Object();
+    
+    private volatile ChangeLog changeLog = ChangeLog.NONE;
+    
+    // Last course analytics report, reused until a grade changes
+    private volatile CourseAnalytics.Report analytics;
+    
     public CourseService() {
-        this.courses = new HashMap<>();
+        this.courses = new ConcurrentHashMap<>();
+        // Every semester gets its set up front so the EnumMap is never resized while read
+        for (Semester semester : Semester.values()) {
+            bySemester.put(semester, ConcurrentHashMap.newKeySet());
+        }
+    }
+    
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog == null ? ChangeLog.NONE : changeLog;
+    }
+    
+    // Runs the action with course changes held off, so none is between its journal append
+    // and its in-memory update
+    public void runQuiesced(ChangeLog.Action action) throws IOException {
+        synchronized (indexLock) {
+            action.run();
+        }
     }
     
     @Override
     public void save(Course course) throws IOException {
-        if (course == null || course.getCode() == null) {
-            throw new ValidationException("Course and code cannot be null");
+        long start = Metrics.start();
+        try {
+            if (course == null || course.getCode() == null) {
+                throw new ValidationException("Course and code cannot be null");
+            }
+            synchronized (indexLock) {
+                changeLog.courseSaved(course);
+                courses.put(course.getCode(), course);
+                index(course);
+            }
+        } catch (RuntimeException e) {
+            SAVE.failed();
+            throw e;
+        } finally {
+            SAVE.record(start);
+        }
+    }
+    
+    private void index(Course course) {
+        String code = course.getCode();
+        departmentIndex.put(code, course.getDepartment());
+        
+        String oldInstructor = indexedInstructor.get(code);
+        String newInstructor = course.getInstructorId();
+        if (!Objects.equals(oldInstructor, newInstructor)) {
+            removePosting(byInstructor, oldInstructor, code);
+            addPosting(byInstructor, newInstructor, code);
+            indexedInstructor.put(code, newInstructor);
+        }
+        
+        Semester oldSemester = indexedSemester.get(code);
+        Semester newSemester = course.getSemester();
+        if (oldSemester != newSemester) {
+            removePosting(bySemester, oldSemester, code);
+            addPosting(bySemester, newSemester, code);
+            indexedSemester.put(code, newSemester);
+        }
+    }
+    
+    private static <K> void addPosting(Map<K, Set<String>> index, K key, String code) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(code);
+        }
+    }
+    
+    private static <K> void removePosting(Map<K, Set<String>> index, K key, String code) {
+        if (key == null) return;
+        Set<String> codes = index.get(key);
+        if (codes != null) {
+            codes.remove(code);
         }
-        courses.put(course.getCode(), course);
     }
     
     @Override
     public Course findById(String code) throws IOException {
-        return courses.get(code);
+        long start = Metrics.start();
+        try {
+            return courses.get(code);
+        } catch (RuntimeException e) {
+            FIND_BY_ID.failed();
+            throw e;
+        } finally {
+            FIND_BY_ID.record(start);
+        }
     }
     
     @Override
     public List<Course> findAll() throws IOException {
-        return new ArrayList<>(courses.values());
+        long start = Metrics.start();
+        try {
+            return new ArrayList<>(courses.values());
+        } catch (RuntimeException e) {
+            FIND_ALL.failed();
+            throw e;
+        } finally {
+            FIND_ALL.record(start);
+        }
     }
     
     @Override
     public void delete(String code) throws IOException {
-        Course course = courses.get(code);
-        if (course != null) {
-            course.setActive(false);
+        long start = Metrics.start();
+        try {
+            Course course = courses.get(code);
+            if (course != null) {
+                synchronized (indexLock) {
+                    changeLog.courseDeleted(code);
+                    course.setActive(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            DELETE.failed();
+            throw e;
+        } finally {
+            DELETE.record(start);
         }
     }
     
     @Override
     public List<Course> search(Predicate<Course> criteria) {
-        return courses.values().stream()
-            .filter(criteria)
-            .collect(Collectors.toList());
+        long start = Metrics.start();
+        try {
+            return courses.values().stream()
+                .filter(criteria)
+                .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            SEARCH.failed();
+            throw e;
+        } finally {
+            SEARCH.record(start);
+        }
     }
     
     @Override
     public List<Course> filterBy(String field, String value) {
-        switch (field.toLowerCase()) {
-            case "department":
-                return search(c -> c.getDepartment().toLowerCase().contains(value.toLowerCase()));
-            case "instructor":
-                return search(c -> c.getInstructorId().equals(value));
-            case "semester":
-                return search(c -> c.getSemester().name().equalsIgnoreCase(value));
-            default:
-                return new ArrayList<>();
+        long start = Metrics.start();
+        try {
+            switch (field.toLowerCase()) {
+                case "department":
+                    return resolve(departmentIndex.search(value));
+                case "instructor":
+                    return resolve(byInstructor.getOrDefault(value, Collections.emptySet()));
+                case "semester":
+                    Semester semester = parseSemester(value);
+                    return semester == null ? new ArrayList<>()
+                        : resolve(bySemester.getOrDefault(semester, Collections.emptySet()));
+                default:
+                    return new ArrayList<>();
+            }
+        } catch (RuntimeException e) {
+            FILTER_BY.failed();
+            throw e;
+        } finally {
+            FILTER_BY.record(start);
+        }
+    }
+    
+    private static Semester parseSemester(String value) {
+        for (Semester semester : Semester.values()) {
+            if (semester.name().equalsIgnoreCase(value)) return semester;
+        }
+        return null;
+    }
+    
+    private List<Course> resolve(Collection<String> codes) {
+        List<Course> result = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            result.add(courses.get(code));
+        }
+        return result;
+    }
+    
+    // Writes every course to a binary snapshot and returns its path
+    public Path writeSnapshot() throws IOException {
+        long start = Metrics.start();
+        try {
+            Path target = AppConfig.getInstance().getSnapshotDirectory().resolve("courses.snap");
+            BinarySnapshot.write(target, Collections.emptyList(), findAll(), Collections.emptyList());
+            return target;
+        } catch (IOException | RuntimeException e) {
+            WRITE_SNAPSHOT.failed();
+            throw e;
+        } finally {
+            WRITE_SNAPSHOT.record(start);
+        }
+    }
+    
+    @Override
+    public void backup() throws IOException {
+        writeSnapshot();
+    }
+    
+    // Grade histogram, mean and fail rate per course, recomputed only after a grade change
+    public CourseAnalytics.Report getCourseAnalytics(GradeStore grades) {
+        long start = Metrics.start();
+        try {
+            CourseAnalytics.Report cached = analytics;
+            if (cached != null && cached.isCurrent(grades)) return cached;
+            
+            CourseAnalytics.Report report = new CourseAnalytics().compute(grades);
+            analytics = report;
+            return report;
+        } catch (RuntimeException e) {
+            ANALYTICS.failed();
+            throw e;
+        } finally {
+            ANALYTICS.record(start);
         }
     }
     
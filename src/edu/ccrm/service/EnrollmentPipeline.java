@@ -0,0 +1,219 @@
+package edu.ccrm.service;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import edu.ccrm.util.ThreadPools;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Asynchronous enrollment intake for registration rushes. Requests wait in a bounded
+// queue; a dispatcher drains them, groups them by course and hands each group to the
+// worker executor. Submitters block once the queue and the in-flight batches are full.
+public class EnrollmentPipeline implements AutoCloseable {
+    public enum Outcome {
+        ENROLLED, ALREADY_ENROLLED, WAITLISTED, CREDIT_LIMIT_EXCEEDED, STUDENT_NOT_FOUND, COURSE_NOT_FOUND, REJECTED
+    }
+    
+    public static class Result {
+        private final String studentId;
+        private final String courseCode;
+        private final Outcome outcome;
+        private final String message;
+        
+        Result(String studentId, String courseCode, Outcome outcome, String message) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+            this.outcome = outcome;
+            this.message = message;
+        }
+        
+        public String getStudentId() { return studentId; }
+        public String getCourseCode() { return courseCode; }
+        public Outcome getOutcome() { return outcome; }
+        public String getMessage() { return message; }
+        
+        @Override
+        public String toString() {
+            return studentId + " -> " + courseCode + ": " + outcome + (message != null ? " (" + message + ")" : "");
+        }
+    }
+    
+    private static final class Request {
+        final String studentId;
+        final String courseCode;
+        final long submittedAt = System.nanoTime();
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        
+        Request(String studentId, String courseCode) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+        }
+    }
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final int maxCredits;
+    private final int maxBatchSize;
+    private final BlockingQueue<Request> queue;
+    private final Semaphore inFlightBatches;
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile boolean closed;
+    
+    public EnrollmentPipeline(StudentService studentService, CourseService courseService) {
+        this(studentService, courseService, AppConfig.getInstance(), 10_000, 256,
+             Runtime.getRuntime().availableProcessors() * 4);
+    }
+    
+    public EnrollmentPipeline(StudentService studentService, CourseService courseService, AppConfig config,
+                              int queueCapacity, int maxBatchSize, int maxInFlightBatches) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.maxCredits = config.getMaxCreditsPerSemester();
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlightBatches = new Semaphore(maxInFlightBatches);
+        this.workers = ThreadPools.newPerTaskExecutor("enrollment-worker", maxInFlightBatches);
+        this.dispatcher = ThreadPools.daemonThreads("enrollment-dispatcher").newThread(this::dispatchLoop);
+        this.dispatcher.start();
+    }
+    
+    // Blocks while the pipeline is saturated
+    public CompletableFuture<Result> submit(String studentId, String courseCode) throws InterruptedException {
+        Request request = new Request(studentId, courseCode);
+        if (closed) {
+            complete(request, Outcome.REJECTED, "pipeline closed");
+        } else {
+            queue.put(request);
+            rejectIfClosed(request);
+        }
+        return request.future;
+    }
+    
+    // Gives up after the timeout and completes the request as REJECTED
+    public CompletableFuture<Result> trySubmit(String studentId, String courseCode, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Request request = new Request(studentId, courseCode);
+        if (closed || !queue.offer(request, timeout, unit)) {
+            complete(request, Outcome.REJECTED, closed ? "pipeline closed" : "queue full");
+        } else {
+            rejectIfClosed(request);
+        }
+        return request.future;
+    }
+    
+    // A request enqueued after close() drained the queue would never be picked up. Whoever
+    // removes it from the queue completes it: the dispatcher, close() or the submitter here.
+    private void rejectIfClosed(Request request) {
+        if (closed && queue.remove(request)) {
+            complete(request, Outcome.REJECTED, "pipeline closed");
+        }
+    }
+    
+    public int getQueuedCount() {
+        return queue.size();
+    }
+    
+    // End-to-end latency from submit to completion, in nanoseconds
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+    
+    private void dispatchLoop() {
+        List<Request> drained = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                
+                drained.add(first);
+                queue.drainTo(drained, maxBatchSize - 1);
+                
+                Map<String, List<Request>> byCourse = new LinkedHashMap<>();
+                for (Request request : drained) {
+                    byCourse.computeIfAbsent(request.courseCode, code -> new ArrayList<>()).add(request);
+                }
+                drained.clear();
+                
+                for (List<Request> batch : byCourse.values()) {
+                    inFlightBatches.acquire();
+                    workers.execute(() -> {
+                        try {
+                            applyBatch(batch);
+                        } finally {
+                            inFlightBatches.release();
+                        }
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // All requests in a batch target the same course, so it is looked up once
+    private void applyBatch(List<Request> batch) {
+        Course course;
+        try {
+            course = courseService.findById(batch.get(0).courseCode);
+        } catch (IOException e) {
+            course = null;
+        }
+        
+        for (Request request : batch) {
+            if (course == null) {
+                complete(request, Outcome.COURSE_NOT_FOUND, null);
+                continue;
+            }
+            try {
+                complete(request, toOutcome(studentService.enrollStudent(request.studentId, course, maxCredits)), null);
+            } catch (MaxCreditLimitExceededException e) {
+                complete(request, Outcome.CREDIT_LIMIT_EXCEEDED, e.getMessage());
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+    
+    private static Outcome toOutcome(EnrollmentStatus status) {
+        switch (status) {
+            case ALREADY_ENROLLED:
+                return Outcome.ALREADY_ENROLLED;
+            case WAITLISTED:
+                return Outcome.WAITLISTED;
+            case STUDENT_NOT_FOUND:
+                return Outcome.STUDENT_NOT_FOUND;
+            default:
+                return Outcome.ENROLLED;
+        }
+    }
+    
+    private void complete(Request request, Outcome outcome, String message) {
+        latency.record(System.nanoTime() - request.submittedAt);
+        request.future.complete(new Result(request.studentId, request.courseCode, outcome, message));
+    }
+    
+    // Stops accepting requests, finishes everything already queued and waits for the workers.
+    // If interrupted it stops waiting and restores the flag; queued requests still complete.
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            dispatcher.join();
+            
+            // Anything that slipped in after the dispatcher's last look is turned away
+            Request leftover;
+            while ((leftover = queue.poll()) != null) {
+                complete(leftover, Outcome.REJECTED, "pipeline closed");
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Enrollment records indexed both ways (student -> courses and course -> students),
+// so rosters and headcounts cost O(result) instead of a scan over every student.
+// Both indexes are concurrent maps; callers serialize updates for one student.
+// Inner maps are never removed once created, so a concurrent writer can't add to a detached map.
+public class EnrollmentService {
+    private final Map<String, Map<String, Enrollment>> byStudent = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Enrollment>> byCourse = new ConcurrentHashMap<>();
+    
+    // Returns the existing record if the student is already enrolled
+    public Enrollment enroll(String studentId, String courseCode) {
+        Map<String, Enrollment> courses = byStudent.computeIfAbsent(studentId, id -> new ConcurrentHashMap<>());
+        Enrollment enrollment = courses.get(courseCode);
+        if (enrollment == null) {
+            enrollment = new Enrollment(studentId, courseCode);
+            courses.put(courseCode, enrollment);
+            byCourse.computeIfAbsent(courseCode, code -> new ConcurrentHashMap<>()).put(studentId, enrollment);
+        }
+        return enrollment;
+    }
+    
+    public boolean unenroll(String studentId, String courseCode) {
+        Enrollment removed = removeEntry(byStudent, studentId, courseCode);
+        if (removed == null) return false;
+        
+        removeEntry(byCourse, courseCode, studentId);
+        removed.setActive(false);
+        return true;
+    }
+    
+    public void recordGrade(String studentId, String courseCode, Grade grade) {
+        Enrollment enrollment = find(studentId, courseCode);
+        if (enrollment != null) {
+            enrollment.setGrade(grade);
+        }
+    }
+    
+    public Enrollment find(String studentId, String courseCode) {
+        Map<String, Enrollment> courses = byStudent.get(studentId);
+        return courses == null ? null : courses.get(courseCode);
+    }
+    
+    public List<Enrollment> getEnrollmentsForStudent(String studentId) {
+        Map<String, Enrollment> courses = byStudent.get(studentId);
+        return courses == null ? new ArrayList<>() : new ArrayList<>(courses.values());
+    }
+    
+    // Enrollments for the course, in no particular order
+    public List<Enrollment> getRoster(String courseCode) {
+        Map<String, Enrollment> students = byCourse.get(courseCode);
+        return students == null ? new ArrayList<>() : new ArrayList<>(students.values());
+    }
+    
+    public int getHeadcount(String courseCode) {
+        Map<String, Enrollment> students = byCourse.get(courseCode);
+        return students == null ? 0 : students.size();
+    }
+    
+    public Map<String, Integer> getHeadcounts() {
+        Map<String, Integer> headcounts = new HashMap<>();
+        byCourse.forEach((code, students) -> {
+            if (!students.isEmpty()) headcounts.put(code, students.size());
+        });
+        return headcounts;
+    }
+    
+    private static Enrollment removeEntry(Map<String, Map<String, Enrollment>> index, String outer, String inner) {
+        Map<String, Enrollment> entries = index.get(outer);
+        return entries == null ? null : entries.remove(inner);
+    }
+}
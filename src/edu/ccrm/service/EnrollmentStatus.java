@@ -0,0 +1,9 @@
+package edu.ccrm.service;
+
+// Result of a capacity-aware enrollment attempt
+public enum EnrollmentStatus {
+    ENROLLED,
+    ALREADY_ENROLLED,
+    WAITLISTED,
+    STUDENT_NOT_FOUND
+}
@@ -0,0 +1,115 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+import java.util.*;
+
+// Students ordered by GPA, kept current as grades change, so the top K can be read
+// in O(K) instead of ranking every student on each query. Students are spread over
+// shards by ID, each a sorted set with its own lock, so updates for different students
+// rarely wait on each other; a query takes the first K of every shard and merges them.
+public class GpaLeaderboard {
+    private static final int SHARDS = 16;
+    
+    private final Shard[] shards = new Shard[SHARDS];
+    
+    public GpaLeaderboard() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+    
+    private Shard shardFor(String studentId) {
+        int hash = studentId.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+    
+    public void update(Student student) {
+        shardFor(student.getId()).update(student);
+    }
+    
+    public void remove(String studentId) {
+        shardFor(studentId).remove(studentId);
+    }
+    
+    public List<Student> top(int count) {
+        if (count <= 0) return new ArrayList<>();
+        
+        List<Entry> candidates = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.top(count, candidates);
+        }
+        Collections.sort(candidates);
+        
+        List<Student> result = new ArrayList<>(Math.min(count, candidates.size()));
+        for (Entry entry : candidates) {
+            if (result.size() >= count) break;
+            result.add(entry.student);
+        }
+        return result;
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+    
+    private static final class Shard {
+        private final NavigableSet<Entry> ranking = new TreeSet<>();
+        private final Map<String, Entry> entries = new HashMap<>();
+        
+        // The GPA is read once, under the lock, and the entry is ranked on that value
+        synchronized void update(Student student) {
+            Entry previous = entries.get(student.getId());
+            double gpa = student.calculateGPA();
+            if (previous != null) {
+                if (previous.student == student && previous.gpa == gpa) return;
+                ranking.remove(previous);
+            }
+            
+            Entry entry = new Entry(student, gpa);
+            entries.put(student.getId(), entry);
+            ranking.add(entry);
+        }
+        
+        synchronized void remove(String studentId) {
+            Entry entry = entries.remove(studentId);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        }
+        
+        synchronized void top(int count, List<Entry> target) {
+            int taken = 0;
+            for (Entry entry : ranking) {
+                if (taken++ >= count) break;
+                target.add(entry);
+            }
+        }
+        
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+    
+    // A student with the GPA it is ranked on. Highest GPA first; ties broken by student
+    // ID so the order is stable. The GPA never changes after the entry is made, so sorted
+    // structures stay consistent while the student's grades move on.
+    static final class Entry implements Comparable<Entry> {
+        final Student student;
+        final double gpa;
+        
+        Entry(Student student, double gpa) {
+            this.student = student;
+            this.gpa = gpa;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int byGpa = Double.compare(other.gpa, gpa);
+            return byGpa != 0 ? byGpa : student.getId().compareTo(other.student.getId());
+        }
+    }
+}
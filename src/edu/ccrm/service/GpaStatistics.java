@@ -0,0 +1,256 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+
+// Builds the GPA report (bucket counts, mean, percentiles, per-department grade points
+// and pass rates) in one parallel pass over the students, where each worker fills a
+// primitive accumulator and the accumulators are merged at the end. The same report can
+// be built from a GradeStore: the student slots of each of its segments are split into
+// blocks, and each block walks its students' row chains into its own accumulator.
+public class GpaStatistics {
+    // Lower bounds of the upper buckets: <5.0, 5.0-6.9, 7.0-8.9, 9.0+
+    public static final double[] DEFAULT_BOUNDARIES = {5.0, 7.0, 9.0};
+    
+    private static final double MAX_GPA = 10.0;
+    private static final int RESOLUTION = 100; // percentile histogram slots per grade point
+    private static final int STUDENTS_PER_BLOCK = 1 << 14;
+    
+    private final double[] boundaries;
+    private final Map<String, String> courseDepartments;
+    
+    public GpaStatistics() {
+        this(DEFAULT_BOUNDARIES, Collections.emptyMap());
+    }
+    
+    // courseDepartments maps course code to department; leave empty to skip the breakdown
+    public GpaStatistics(double[] boundaries, Map<String, String> courseDepartments) {
+        this.boundaries = boundaries.clone();
+        Arrays.sort(this.boundaries);
+        this.courseDepartments = courseDepartments;
+    }
+    
+    public Report compute(Collection<Student> students) {
+        return students.parallelStream()
+            .collect(Accumulator::new, Accumulator::add, Accumulator::merge)
+            .toReport();
+    }
+    
+    public Report compute(GradeStore store) {
+        return store.scan(columns -> {
+            List<String> names = new ArrayList<>();
+            int[] departmentOf = courseDepartments.isEmpty() ? null
+                : GradeStore.departmentIndex(columns, courseDepartments, names);
+            List<int[]> blocks = new ArrayList<>(); // {segment, block}
+            for (int segment = 0; segment < columns.segments.length; segment++) {
+                int count = (columns.segments[segment].studentCount + STUDENTS_PER_BLOCK - 1) / STUDENTS_PER_BLOCK;
+                for (int block = 0; block < count; block++) {
+                    blocks.add(new int[] {segment, block});
+                }
+            }
+            ColumnAccumulator result = blocks.parallelStream().collect(
+                () -> new ColumnAccumulator(names.size()),
+                (accumulator, block) -> accumulator.addBlock(columns.segments[block[0]], departmentOf, block[1]),
+                ColumnAccumulator::merge);
+            return result.toReport(names);
+        });
+    }
+    
+    // Bucket index = number of boundaries at or below the GPA
+    private int bucketOf(double gpa) {
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid] <= gpa) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private final class Accumulator {
+        final long[] buckets = new long[boundaries.length + 1];
+        final long[] histogram = new long[(int) (MAX_GPA * RESOLUTION) + 1];
+        final Map<String, double[]> departments = new HashMap<>(); // {points, grades, passed}
+        long count;
+        double sum;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        
+        void add(Student student) {
+            addGpa(student.calculateGPA());
+            
+            if (!courseDepartments.isEmpty()) {
+                student.forEachGrade((course, grade) -> {
+                    String department = courseDepartments.get(course);
+                    if (department != null) {
+                        double[] totals = departments.computeIfAbsent(department, d -> new double[3]);
+                        totals[0] += grade.getGradePoint();
+                        totals[1]++;
+                        if (grade != Grade.F) totals[2]++;
+                    }
+                });
+            }
+        }
+        
+        void addGpa(double gpa) {
+            count++;
+            sum += gpa;
+            min = Math.min(min, gpa);
+            max = Math.max(max, gpa);
+            buckets[bucketOf(gpa)]++;
+            
+            int slot = (int) Math.round(gpa * RESOLUTION);
+            histogram[Math.max(0, Math.min(histogram.length - 1, slot))]++;
+        }
+        
+        void merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int i = 0; i < buckets.length; i++) buckets[i] += other.buckets[i];
+            for (int i = 0; i < histogram.length; i++) histogram[i] += other.histogram[i];
+            other.departments.forEach((department, totals) -> {
+                double[] mine = departments.computeIfAbsent(department, d -> new double[3]);
+                mine[0] += totals[0];
+                mine[1] += totals[1];
+                mine[2] += totals[2];
+            });
+        }
+        
+        Report toReport() {
+            Map<String, DepartmentSummary> summaries = new TreeMap<>();
+            departments.forEach((department, totals) ->
+                summaries.put(department, new DepartmentSummary(department, (long) totals[1],
+                    totals[0] / totals[1], totals[2] / totals[1])));
+            
+            return new Report(boundaries, buckets, histogram, count,
+                count == 0 ? 0.0 : sum / count,
+                count == 0 ? 0.0 : min,
+                count == 0 ? 0.0 : max,
+                summaries);
+        }
+    }
+    
+    // Accumulator for the columnar path, with department totals indexed by department slot
+    private final class ColumnAccumulator {
+        final Accumulator gpas = new Accumulator();
+        final double[][] departments; // {points, grades, passed} per department slot
+        
+        ColumnAccumulator(int departmentCount) {
+            departments = new double[departmentCount][3];
+        }
+        
+        void addBlock(GradeStore.Segment segment, int[] departmentOf, int block) {
+            int[] courses = segment.courses;
+            byte[] grades = segment.grades;
+            int[] next = segment.next;
+            int end = Math.min(segment.studentCount, (block + 1) * STUDENTS_PER_BLOCK);
+            for (int student = block * STUDENTS_PER_BLOCK; student < end; student++) {
+                double points = 0;
+                int count = 0;
+                for (int row = segment.head[student]; row != GradeStore.NO_ROW; row = next[row]) {
+                    double gradePoint = GradeStore.gradePoint(grades[row]);
+                    points += gradePoint;
+                    count++;
+                    if (departmentOf != null && departmentOf[courses[row]] >= 0) {
+                        double[] totals = departments[departmentOf[courses[row]]];
+                        totals[0] += gradePoint;
+                        totals[1]++;
+                        if (!GradeStore.isFail(grades[row])) totals[2]++;
+                    }
+                }
+                gpas.addGpa(count == 0 ? 0.0 : points / count);
+            }
+        }
+        
+        void merge(ColumnAccumulator other) {
+            gpas.merge(other.gpas);
+            for (int i = 0; i < departments.length; i++) {
+                for (int j = 0; j < 3; j++) departments[i][j] += other.departments[i][j];
+            }
+        }
+        
+        Report toReport(List<String> names) {
+            for (int i = 0; i < departments.length; i++) {
+                if (departments[i][1] > 0) gpas.departments.put(names.get(i), departments[i]);
+            }
+            return gpas.toReport();
+        }
+    }
+    
+    public static class Report {
+        private final double[] boundaries;
+        private final long[] bucketCounts;
+        private final long[] histogram;
+        private final long studentCount;
+        private final double mean;
+        private final double min;
+        private final double max;
+        private final Map<String, DepartmentSummary> departments;
+        
+        Report(double[] boundaries, long[] bucketCounts, long[] histogram, long studentCount,
+               double mean, double min, double max, Map<String, DepartmentSummary> departments) {
+            this.boundaries = boundaries;
+            this.bucketCounts = bucketCounts;
+            this.histogram = histogram;
+            this.studentCount = studentCount;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+            this.departments = departments;
+        }
+        
+        public long getStudentCount() { return studentCount; }
+        public double getMean() { return mean; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public int getBucketCount() { return bucketCounts.length; }
+        public long getBucket(int index) { return bucketCounts[index]; }
+        public Map<String, DepartmentSummary> getDepartments() { return Collections.unmodifiableMap(departments); }
+        
+        // Human-readable range of a bucket, e.g. "7.0 - 9.0"
+        public String getBucketLabel(int index) {
+            if (boundaries.length == 0) return "all";
+            if (index == 0) return "< " + boundaries[0];
+            if (index == boundaries.length) return ">= " + boundaries[boundaries.length - 1];
+            return boundaries[index - 1] + " - " + boundaries[index];
+        }
+        
+        // Nearest-rank percentile, accurate to 0.01 grade points; percent is 0-100
+        public double percentile(double percent) {
+            if (studentCount == 0) return 0.0;
+            
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * studentCount));
+            long seen = 0;
+            for (int slot = 0; slot < histogram.length; slot++) {
+                seen += histogram[slot];
+                if (seen >= rank) return (double) slot / RESOLUTION;
+            }
+            return max;
+        }
+    }
+    
+    public static class DepartmentSummary {
+        private final String department;
+        private final long gradeCount;
+        private final double meanGradePoint;
+        private final double passRate;
+        
+        DepartmentSummary(String department, long gradeCount, double meanGradePoint, double passRate) {
+            this.department = department;
+            this.gradeCount = gradeCount;
+            this.meanGradePoint = meanGradePoint;
+            this.passRate = passRate;
+        }
+        
+        public String getDepartment() { return department; }
+        public long getGradeCount() { return gradeCount; }
+        public double getMeanGradePoint() { return meanGradePoint; }
+        public double getPassRate() { return passRate; } // share of grades other than F
+    }
+}
@@ -0,0 +1,441 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Columnar copy of every grade for analytics. Each (student, course) grade is one row
+// across parallel primitive arrays: int course index, byte grade ordinal. A student's rows
+// are chained through next[] starting at head[], so an update finds its row by walking a
+// handful of ints instead of hashing. Student still owns its grade map, so the store costs
+// about 13 bytes a grade on top of it; what it buys is reports that scan dense arrays
+// instead of millions of small maps.
+// Students are spread over partitions by the same hash StudentService stripes on, each
+// with its own lock, so writers under different stripes rarely meet. Course slots are
+// shared by all partitions. Scans copy each partition's columns under its lock and run
+// on the copies, so a long report never holds writers off; a partition's copy is kept
+// and reused by later scans until the partition changes again.
+public class GradeStore {
+    static final int NO_ROW = -1;
+    private static final int PARTITIONS = 16;
+    private static final Grade[] GRADES = Grade.values();
+    private static final double[] POINTS = new double[GRADES.length];
+    private static final byte FAIL = (byte) Grade.F.ordinal();
+    
+    static {
+        for (Grade grade : GRADES) {
+            POINTS[grade.ordinal()] = grade.getGradePoint();
+        }
+    }
+    
+    private final Partition[] partitions = new Partition[PARTITIONS];
+    
+    // Course code -> slot. Slots are only added, under the map's monitor; codes[slot] is
+    // written before the count is raised, so readers of the count see every code below it.
+    private final Map<String, Integer> courseSlots = new ConcurrentHashMap<>();
+    private volatile String[] courseCodes = new String[64];
+    private volatile int courseCount;
+    
+    public GradeStore() {
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+    
+    private Partition partitionFor(String studentId) {
+        int hash = studentId.hashCode();
+        return partitions[(hash ^ (hash >>> 16)) & (PARTITIONS - 1)];
+    }
+    
+    // Registers a student so that one with no grades still counts in per-student reports
+    public void addStudent(String studentId) {
+        partitionFor(studentId).addStudent(studentId);
+    }
+    
+    public void put(String studentId, String courseCode, Grade grade) {
+        partitionFor(studentId).put(studentId, courseSlot(courseCode), (byte) grade.ordinal());
+    }
+    
+    public void remove(String studentId, String courseCode) {
+        Integer course = courseSlots.get(courseCode);
+        if (course != null) {
+            partitionFor(studentId).remove(studentId, course);
+        }
+    }
+    
+    public Grade get(String studentId, String courseCode) {
+        Integer course = courseSlots.get(courseCode);
+        return course == null ? null : partitionFor(studentId).get(studentId, course);
+    }
+    
+    public int size() {
+        int rows = 0;
+        for (Partition partition : partitions) {
+            rows += partition.size();
+        }
+        return rows;
+    }
+    
+    // Bumped by every change, so callers can cache results built from a scan. Each
+    // partition's count only grows, so the sum is unchanged only if no partition changed.
+    public long getVersion() {
+        long version = 0;
+        for (Partition partition : partitions) {
+            version += partition.version;
+        }
+        return version;
+    }
+    
+    // Bytes held by the grade columns and the dictionary tables (not the ID strings,
+    // which are shared with the domain objects)
+    public long getColumnBytes() {
+        long bytes = (long) courseCodes.length * 4;
+        for (Partition partition : partitions) {
+            bytes += partition.bytes();
+        }
+        return bytes;
+    }
+    
+    private int courseSlot(String courseCode) {
+        Integer slot = courseSlots.get(courseCode);
+        if (slot != null) return slot;
+        
+        synchronized (courseSlots) {
+            slot = courseSlots.get(courseCode);
+            if (slot != null) return slot;
+            
+            int count = courseCount;
+            String[] codes = courseCodes;
+            if (count == codes.length) {
+                codes = Arrays.copyOf(codes, count * 2);
+                courseCodes = codes;
+            }
+            codes[count] = courseCode;
+            courseSlots.put(courseCode, count);
+            courseCount = count + 1;
+            return count;
+        }
+    }
+    
+    // Mean grade point per course code
+    public Map<String, Double> getCourseAverages() {
+        return scan(columns -> {
+            double[] points = new double[columns.courseCount];
+            int[] counts = new int[columns.courseCount];
+            for (Segment segment : columns.segments) {
+                addCourseTotals(segment, points, counts);
+            }
+            
+            Map<String, Double> averages = new HashMap<>();
+            for (int course = 0; course < columns.courseCount; course++) {
+                if (counts[course] > 0) {
+                    averages.put(columns.courseCodes[course], points[course] / counts[course]);
+                }
+            }
+            return averages;
+        });
+    }
+    
+    private static void addCourseTotals(Segment segment, double[] points, int[] counts) {
+        int[] courses = segment.courses;
+        byte[] grades = segment.grades;
+        for (int row = 0; row < segment.rows; row++) {
+            points[courses[row]] += POINTS[grades[row]];
+            counts[courses[row]]++;
+        }
+    }
+    
+    // Share of grades other than F per department; courses missing from the map are ignored
+    public Map<String, Double> getPassRates(Map<String, String> courseDepartments) {
+        return scan(columns -> {
+            List<String> departments = new ArrayList<>();
+            int[] departmentOf = departmentIndex(columns, courseDepartments, departments);
+            int[] passed = new int[departments.size()];
+            int[] totals = new int[departments.size()];
+            for (Segment segment : columns.segments) {
+                addPassCounts(segment, departmentOf, passed, totals);
+            }
+            
+            Map<String, Double> rates = new TreeMap<>();
+            for (int i = 0; i < totals.length; i++) {
+                if (totals[i] > 0) rates.put(departments.get(i), (double) passed[i] / totals[i]);
+            }
+            return rates;
+        });
+    }
+    
+    private static void addPassCounts(Segment segment, int[] departmentOf, int[] passed, int[] totals) {
+        int[] courses = segment.courses;
+        byte[] grades = segment.grades;
+        for (int row = 0; row < segment.rows; row++) {
+            int department = departmentOf[courses[row]];
+            if (department >= 0) {
+                totals[department]++;
+                if (grades[row] != FAIL) passed[department]++;
+            }
+        }
+    }
+    
+    // Course slot -> department slot (or -1), filling departments with the names in slot order
+    static int[] departmentIndex(Columns columns, Map<String, String> courseDepartments, List<String> departments) {
+        Map<String, Integer> slots = new HashMap<>();
+        int[] departmentOf = new int[columns.courseCount];
+        for (int course = 0; course < columns.courseCount; course++) {
+            String department = courseDepartments.get(columns.courseCodes[course]);
+            if (department == null) {
+                departmentOf[course] = -1;
+                continue;
+            }
+            departmentOf[course] = slots.computeIfAbsent(department, d -> {
+                departments.add(d);
+                return departments.size() - 1;
+            });
+        }
+        return departmentOf;
+    }
+    
+    static double gradePoint(byte ordinal) {
+        return POINTS[ordinal];
+    }
+    
+    static boolean isFail(byte ordinal) {
+        return ordinal == FAIL;
+    }
+    
+    // Runs a query against a copy of the columns. Partitions are copied one at a time, each
+    // under its own lock, and the course codes after them, so every course a copied row
+    // refers to is in the copy. The query sees each partition as of its copy.
+    <T> T scan(Function<Columns, T> query) {
+        Segment[] segments = new Segment[PARTITIONS];
+        long version = 0;
+        int rows = 0;
+        for (int i = 0; i < PARTITIONS; i++) {
+            segments[i] = partitions[i].copy();
+            version += segments[i].version;
+            rows += segments[i].rows;
+        }
+        int count = courseCount;
+        String[] codes = Arrays.copyOf(courseCodes, count);
+        return query.apply(new Columns(segments, rows, codes, count, version));
+    }
+    
+    static final class Columns {
+        final Segment[] segments;
+        final int rows;         // across all segments
+        final String[] courseCodes;
+        final int courseCount;
+        final long version;     // getVersion() as of the copy
+        
+        Columns(Segment[] segments, int rows, String[] courseCodes, int courseCount, long version) {
+            this.segments = segments;
+            this.rows = rows;
+            this.courseCodes = courseCodes;
+            this.courseCount = courseCount;
+            this.version = version;
+        }
+    }
+    
+    // One partition's columns, copied for a scan
+    static final class Segment {
+        final int[] courses;
+        final byte[] grades;
+        final int[] next;
+        final int rows;
+        final int[] head; // first row of each student slot, chained through next
+        final int studentCount;
+        final long version;
+        
+        Segment(int[] courses, byte[] grades, int[] next, int rows, int[] head, int studentCount, long version) {
+            this.courses = courses;
+            this.grades = grades;
+            this.next = next;
+            this.rows = rows;
+            this.head = head;
+            this.studentCount = studentCount;
+            this.version = version;
+        }
+    }
+    
+    // The rows of the students whose IDs hash to one partition; every method holds its monitor
+    private static final class Partition {
+        private final Dictionary studentIds = new Dictionary();
+        private int[] head = new int[64];
+        
+        private int[] rowStudent = new int[256];
+        private int[] rowCourse = new int[256];
+        private byte[] rowGrade = new byte[256];
+        private int[] next = new int[256];
+        private int rows;
+        private volatile long version;
+        private Segment copied; // last copy handed to a scan, reused while version matches
+        
+        synchronized void addStudent(String studentId) {
+            studentSlot(studentId);
+        }
+        
+        synchronized void put(String studentId, int course, byte ordinal) {
+            int student = studentSlot(studentId);
+            for (int row = head[student]; row != NO_ROW; row = next[row]) {
+                if (rowCourse[row] == course) {
+                    if (rowGrade[row] != ordinal) {
+                        rowGrade[row] = ordinal;
+                        version++;
+                    }
+                    return;
+                }
+            }
+            
+            if (rows == rowStudent.length) {
+                int capacity = rows + (rows >> 1);
+                rowStudent = Arrays.copyOf(rowStudent, capacity);
+                rowCourse = Arrays.copyOf(rowCourse, capacity);
+                rowGrade = Arrays.copyOf(rowGrade, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            rowStudent[rows] = student;
+            rowCourse[rows] = course;
+            rowGrade[rows] = ordinal;
+            next[rows] = head[student];
+            head[student] = rows;
+            rows++;
+            version++;
+        }
+        
+        // Unlinks the row and fills the hole with the last row, keeping the arrays dense
+        synchronized void remove(String studentId, int course) {
+            int student = studentIds.find(studentId);
+            if (student < 0) return;
+            
+            int previous = NO_ROW;
+            int row = head[student];
+            while (row != NO_ROW && rowCourse[row] != course) {
+                previous = row;
+                row = next[row];
+            }
+            if (row == NO_ROW) return;
+            unlink(student, previous, row);
+            
+            int last = rows - 1;
+            if (row != last) {
+                int owner = rowStudent[last];
+                int before = NO_ROW;
+                for (int r = head[owner]; r != last; r = next[r]) {
+                    before = r;
+                }
+                rowStudent[row] = owner;
+                rowCourse[row] = rowCourse[last];
+                rowGrade[row] = rowGrade[last];
+                next[row] = next[last];
+                if (before == NO_ROW) {
+                    head[owner] = row;
+                } else {
+                    next[before] = row;
+                }
+            }
+            rows--;
+            version++;
+        }
+        
+        private void unlink(int student, int previous, int row) {
+            if (previous == NO_ROW) {
+                head[student] = next[row];
+            } else {
+                next[previous] = next[row];
+            }
+        }
+        
+        synchronized Grade get(String studentId, int course) {
+            int student = studentIds.find(studentId);
+            if (student < 0) return null;
+            
+            for (int row = head[student]; row != NO_ROW; row = next[row]) {
+                if (rowCourse[row] == course) return GRADES[rowGrade[row]];
+            }
+            return null;
+        }
+        
+        synchronized int size() {
+            return rows;
+        }
+        
+        synchronized long bytes() {
+            return (long) rowStudent.length * (Integer.BYTES * 3 + 1) + (long) head.length * Integer.BYTES
+                + studentIds.bytes();
+        }
+        
+        synchronized Segment copy() {
+            if (copied == null || copied.version != version) {
+                copied = new Segment(Arrays.copyOf(rowCourse, rows), Arrays.copyOf(rowGrade, rows),
+                    Arrays.copyOf(next, rows), rows, Arrays.copyOf(head, studentIds.size), studentIds.size, version);
+            }
+            return copied;
+        }
+        
+        private int studentSlot(String studentId) {
+            int slot = studentIds.find(studentId);
+            if (slot >= 0) return slot;
+            
+            slot = studentIds.add(studentId);
+            if (slot == head.length) {
+                head = Arrays.copyOf(head, slot * 2);
+            }
+            head[slot] = NO_ROW;
+            version++;
+            return slot;
+        }
+    }
+    
+    // String -> dense int slot, open addressing over an int table holding slot + 1, so
+    // a lookup costs no boxing and each entry is two array cells
+    private static final class Dictionary {
+        String[] values = new String[256];
+        int[] table = new int[512];
+        int size;
+        
+        int find(String value) {
+            int mask = table.length - 1;
+            for (int i = spread(value.hashCode()) & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (values[table[i] - 1].equals(value)) return table[i] - 1;
+            }
+            return -1;
+        }
+        
+        // Caller has checked that the value is absent
+        int add(String value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            if ((size + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            insert(size);
+            return size++;
+        }
+        
+        private void insert(int slot) {
+            int mask = table.length - 1;
+            int i = spread(values[slot].hashCode()) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+        }
+        
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            for (int slot = 0; slot < size; slot++) {
+                insert(slot);
+            }
+        }
+        
+        long bytes() {
+            return (long) values.length * 4 + (long) table.length * Integer.BYTES;
+        }
+        
+        private static int spread(int hash) {
+            return (hash ^ (hash >>> 16)) * 0x9E3779B1;
+        }
+    }
+}
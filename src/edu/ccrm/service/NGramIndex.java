@@ -0,0 +1,105 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Case-insensitive substring index: each indexed value is broken into trigrams and
+// a query only has to check the IDs posted under its rarest trigram.
+// Services share an index across threads: searches hold the read lock and run side by
+// side, while put and remove take the write lock.
+final class NGramIndex {
+    private static final int GRAM_LENGTH = 3;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, String> values = new HashMap<>(); // id -> lowercased value
+    
+    void put(String id, String value) {
+        String text = value == null ? "" : value.toLowerCase();
+        Set<String> grams = grams(text);
+        lock.writeLock().lock();
+        try {
+            String previous = values.put(id, text);
+            if (text.equals(previous)) return;
+            
+            if (previous != null) {
+                unpost(id, previous);
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            String previous = values.remove(id);
+            if (previous != null) {
+                unpost(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // IDs whose value contains the query, ignoring case
+    List<String> search(String query) {
+        String needle = query.toLowerCase();
+        Set<String> grams = grams(needle);
+        lock.readLock().lock();
+        try {
+            return search(needle, grams);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<String> search(String needle, Set<String> grams) {
+        List<String> matches = new ArrayList<>();
+        
+        // Too short for a trigram: check the stored lowercased values directly
+        if (needle.length() < GRAM_LENGTH) {
+            values.forEach((id, text) -> {
+                if (text.contains(needle)) matches.add(id);
+            });
+            return matches;
+        }
+        
+        Set<String> candidates = null;
+        for (String gram : grams) {
+            Set<String> posted = postings.get(gram);
+            if (posted == null) return matches;
+            if (candidates == null || posted.size() < candidates.size()) {
+                candidates = posted;
+            }
+        }
+        
+        for (String id : candidates) {
+            if (values.get(id).contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+    
+    private void unpost(String id, String text) {
+        for (String gram : grams(text)) {
+            Set<String> posted = postings.get(gram);
+            if (posted != null) {
+                posted.remove(id);
+                if (posted.isEmpty()) postings.remove(gram);
+            }
+        }
+    }
+    
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -1,6 +1,7 @@
 package edu.ccrm.service;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 public interface Persistable<T> {
@@ -9,6 +10,13 @@ public interface Persistable<T> {
     List<T> findAll() throws IOException;
     void delete(String id) throws IOException;
     
+    // Bulk save used by the importers; implementations may override with a cheaper path
+    default void saveAll(Collection<T> entities) throws IOException {
+        for (T entity : entities) {
+            save(entity);
+        }
+    }
+    
     // Default method to demonstrate interface evolution
     default void backup() throws IOException {
         System.out.println("Creating backup for " + getClass().getSimpleName());
@@ -1,82 +1,551 @@
 package edu.ccrm.service;
 
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.util.MaxCreditLimitExceededException;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
 import edu.ccrm.util.ValidationException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class StudentService implements Persistable<Student>, Searchable<Student> {
+    // Mutations of one student are serialized on one of these stripes, so unrelated
+    // students can be updated in parallel while compound operations stay atomic
+    private static final int LOCK_STRIPES = 64;
+    
+    private static final OperationMetrics SAVE = Metrics.operation("StudentService.save");
+    private static final OperationMetrics FIND_BY_ID = Metrics.operation("StudentService.findById");
+    private static final OperationMetrics FIND_ALL = Metrics.operation("StudentService.findAll");
+    private static final OperationMetrics DELETE = Metrics.operation("StudentService.delete");
+    private static final OperationMetrics SEARCH = Metrics.operation("StudentService.search");
+    private static final OperationMetrics FILTER_BY = Metrics.operation("StudentService.filterBy");
+    private static final OperationMetrics ENROLL = Metrics.operation("StudentService.enrollStudent");
+    private static final OperationMetrics UNENROLL = Metrics.operation("StudentService.unenrollStudent");
+    private static final OperationMetrics ASSIGN_GRADE = Metrics.operation("StudentService.assignGrade");
+    private static final OperationMetrics TOP_STUDENTS = Metrics.operation("StudentService.getTopStudents");
+    private static final OperationMetrics WRITE_SNAPSHOT = Metrics.operation("StudentService.writeSnapshot");
+    
     private Map<String, Student> students;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile GpaLeaderboard leaderboard;
+    
+    // Secondary indexes for filterBy, refreshed on every save
+    private final NGramIndex nameIndex = new NGramIndex();
+    private final NGramIndex emailIndex = new NGramIndex();
+    
+    // Forward and reverse enrollment indexes, updated together with each Student
+    private final EnrollmentService enrollments = new EnrollmentService();
+    
+    // Columnar copy of all grades for reports, kept in step alongside the enrollment index
+    private final GradeStore grades = new GradeStore();
+    
+    // Told about every mutation while the owning stripe is held
+    private volatile ChangeLog changeLog = ChangeLog.NONE;
+    
+    // Courses written next to the students by backup(), so restored enrollments resolve
+    private volatile CourseService courseCatalog;
     
     public StudentService() {
-        this.students = new HashMap<>();
+        this.students = new ConcurrentHashMap<>();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+    
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog == null ? ChangeLog.NONE : changeLog;
+    }
+    
+    public void setCourseCatalog(CourseService courseCatalog) {
+        this.courseCatalog = courseCatalog;
+    }
+    
+    private Object lockFor(String studentId) {
+        int hash = studentId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+    
+    // Runs the action holding every stripe, in index order, so no mutation is between its
+    // journal append and its in-memory update. Mutators hold one stripe at a time.
+    public void runQuiesced(ChangeLog.Action action) throws IOException {
+        runQuiesced(0, action);
+    }
+    
+    private void runQuiesced(int stripe, ChangeLog.Action action) throws IOException {
+        if (stripe == LOCK_STRIPES) {
+            action.run();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            runQuiesced(stripe + 1, action);
+        }
     }
     
     @Override
     public void save(Student student) throws IOException {
-        if (student == null || student.getId() == null) {
-            throw new ValidationException("Student and ID cannot be null");
+        long start = Metrics.start();
+        try {
+            if (student == null || student.getId() == null) {
+                throw new ValidationException("Student and ID cannot be null");
+            }
+            synchronized (lockFor(student.getId())) {
+                put(student);
+            }
+        } catch (RuntimeException e) {
+            SAVE.failed();
+            throw e;
+        } finally {
+            SAVE.record(start);
+        }
+    }
+    
+    // Adds the student unless the ID is taken, as one step under the ID's stripe;
+    // returns false and changes nothing when a student with that ID already exists
+    public boolean saveIfAbsent(Student student) throws IOException {
+        long start = Metrics.start();
+        try {
+            if (student == null || student.getId() == null) {
+                throw new ValidationException("Student and ID cannot be null");
+            }
+            synchronized (lockFor(student.getId())) {
+                if (students.containsKey(student.getId())) return false;
+                put(student);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            SAVE.failed();
+            throw e;
+        } finally {
+            SAVE.record(start);
         }
+    }
+    
+    private void put(Student student) {
+        changeLog.studentSaved(student);
         students.put(student.getId(), student);
+        nameIndex.put(student.getId(), student.getName().getFullName());
+        emailIndex.put(student.getId(), student.getEmail());
+        grades.addStudent(student.getId());
+        updateLeaderboard(student);
+    }
+    
+    // Adds students whose enrollments and grades were set before they reached the
+    // service, as snapshot loading does; the enrollment index is rebuilt from each one
+    public void restore(Collection<Student> restored) {
+        for (Student student : restored) {
+            String studentId = student.getId();
+            synchronized (lockFor(studentId)) {
+                put(student);
+                for (String courseCode : student.getEnrolledCourses()) {
+                    changeLog.enrolled(studentId, courseCode);
+                    enrollments.enroll(studentId, courseCode);
+                }
+                student.forEachGrade((courseCode, grade) -> {
+                    changeLog.gradeAssigned(studentId, courseCode, grade);
+                    enrollments.recordGrade(studentId, courseCode, grade);
+                    grades.put(studentId, courseCode, grade);
+                });
+            }
+        }
+    }
+    
+    // Writes every student to a binary snapshot and returns its path. The courses go in too,
+    // so restored enrollments can book their credits and seats.
+    public Path writeSnapshot(Collection<Course> courses) throws IOException {
+        long start = Metrics.start();
+        try {
+            Path target = AppConfig.getInstance().getSnapshotDirectory().resolve("students.snap");
+            BinarySnapshot.write(target, findAll(), this::getEnrollments, courses, Collections.emptyList());
+            return target;
+        } catch (IOException | RuntimeException e) {
+            WRITE_SNAPSHOT.failed();
+            throw e;
+        } finally {
+            WRITE_SNAPSHOT.record(start);
+        }
+    }
+    
+    @Override
+    public void backup() throws IOException {
+        CourseService catalog = courseCatalog;
+        if (catalog == null) {
+            throw new IllegalStateException("No course catalog set; a student backup needs the courses it enrolls in");
+        }
+        writeSnapshot(catalog.findAll());
+    }
+    
+    // Enrollments and grades copied together under the student's stripe, so a snapshot
+    // never pairs the course list from before a change with the grades from after it.
+    // Not for use while the journal is locked: mutators append while holding their stripe.
+    public Map<String, Grade> getEnrollments(Student student) {
+        synchronized (lockFor(student.getId())) {
+            return student.getEnrollments();
+        }
     }
     
     @Override
     public Student findById(String id) throws IOException {
-        return students.get(id);
+        long start = Metrics.start();
+        try {
+            return students.get(id);
+        } catch (RuntimeException e) {
+            FIND_BY_ID.failed();
+            throw e;
+        } finally {
+            FIND_BY_ID.record(start);
+        }
     }
     
     @Override
     public List<Student> findAll() throws IOException {
-        return new ArrayList<>(students.values());
+        long start = Metrics.start();
+        try {
+            return new ArrayList<>(students.values());
+        } catch (RuntimeException e) {
+            FIND_ALL.failed();
+            throw e;
+        } finally {
+            FIND_ALL.record(start);
+        }
     }
     
     @Override
     public void delete(String id) throws IOException {
-        Student student = students.get(id);
-        if (student != null) {
-            student.setActive(false);
+        long start = Metrics.start();
+        try {
+            Student student = students.get(id);
+            if (student != null) {
+                synchronized (lockFor(id)) {
+                    changeLog.studentDeleted(id);
+                    student.setActive(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            DELETE.failed();
+            throw e;
+        } finally {
+            DELETE.record(start);
         }
     }
     
     @Override
     public List<Student> search(Predicate<Student> criteria) {
-        return students.values().stream()
-            .filter(criteria)
-            .collect(Collectors.toList());
+        long start = Metrics.start();
+        try {
+            return students.values().stream()
+                .filter(criteria)
+                .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            SEARCH.failed();
+            throw e;
+        } finally {
+            SEARCH.record(start);
+        }
     }
     
     @Override
     public List<Student> filterBy(String field, String value) {
-        switch (field.toLowerCase()) {
-            case "name":
-                return search(s -> s.getName().getFullName().toLowerCase().contains(value.toLowerCase()));
-            case "email":
-                return search(s -> s.getEmail().toLowerCase().contains(value.toLowerCase()));
-            default:
-                return new ArrayList<>();
+        long start = Metrics.start();
+        try {
+            switch (field.toLowerCase()) {
+                case "name":
+                    return resolve(nameIndex.search(value));
+                case "email":
+                    return resolve(emailIndex.search(value));
+                default:
+                    return new ArrayList<>();
+            }
+        } catch (RuntimeException e) {
+            FILTER_BY.failed();
+            throw e;
+        } finally {
+            FILTER_BY.record(start);
+        }
+    }
+    
+    private List<Student> resolve(List<String> ids) {
+        List<Student> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(students.get(id));
         }
+        return result;
     }
     
-    public void enrollStudent(String studentId, String courseCode) {
+    // Checks the semester credit limit, claims a seat and enrolls as one atomic step, so
+    // concurrent requests for the same student cannot both pass the check. When the course
+    // is full the student joins its waitlist instead.
+    public EnrollmentStatus enrollStudent(String studentId, Course course, int maxCredits)
+            throws MaxCreditLimitExceededException {
+        long start = Metrics.start();
+        try {
+            Student student = students.get(studentId);
+            if (student == null) return EnrollmentStatus.STUDENT_NOT_FOUND;
+            
+            synchronized (lockFor(studentId)) {
+                if (student.isEnrolledIn(course.getCode())) return EnrollmentStatus.ALREADY_ENROLLED;
+                checkCreditLimit(student, course, maxCredits);
+                
+                if (course.tryReserveSeat()) {
+                    journalEnrollment(studentId, course);
+                    student.enrollInCourse(course);
+                    enrollments.enroll(studentId, course.getCode());
+                    return EnrollmentStatus.ENROLLED;
+                }
+                course.joinWaitlist(studentId);
+            }
+            
+            // A seat may have been freed between the failed claim and joining the waitlist;
+            // promote now rather than leave the seat empty until the next unenrollment
+            if (course.getAvailableSeats() > 0) {
+                promoteFromWaitlist(course);
+                if (student.isEnrolledIn(course.getCode())) return EnrollmentStatus.ENROLLED;
+            }
+            return EnrollmentStatus.WAITLISTED;
+        } catch (RuntimeException e) {
+            // A credit-limit refusal is an outcome the caller handles, not an error
+            ENROLL.failed();
+            throw e;
+        } finally {
+            ENROLL.record(start);
+        }
+    }
+    
+    // The seat is already claimed; it is given back if the enrollment cannot be journaled
+    private void journalEnrollment(String studentId, Course course) {
+        try {
+            changeLog.enrolled(studentId, course.getCode());
+        } catch (RuntimeException e) {
+            course.releaseSeat();
+            throw e;
+        }
+    }
+    
+    private void checkCreditLimit(Student student, Course course, int maxCredits)
+            throws MaxCreditLimitExceededException {
+        // Exact per-semester load from the student's credit ledger
+        int newCredits = student.getCreditsForSemester(course.getSemester()) + course.getCredits();
+        if (newCredits > maxCredits) {
+            throw new MaxCreditLimitExceededException(newCredits, maxCredits);
+        }
+    }
+    
+    // Frees the seat (or waitlist spot) and promotes waitlisted students into any open seats.
+    // Returns whether the student was enrolled, decided under the same lock as the change.
+    public boolean unenrollStudent(String studentId, Course course) {
+        long start = Metrics.start();
+        try {
+            Student student = students.get(studentId);
+            if (student == null) return false;
+            
+            boolean seatFreed = false;
+            synchronized (lockFor(studentId)) {
+                if (student.isEnrolledIn(course.getCode())) {
+                    changeLog.unenrolled(studentId, course.getCode());
+                    student.unenrollFromCourse(course.getCode());
+                    enrollments.unenroll(studentId, course.getCode());
+                    grades.remove(studentId, course.getCode());
+                    course.releaseSeat();
+                    updateLeaderboard(student);
+                    seatFreed = true;
+                } else {
+                    course.leaveWaitlist(studentId);
+                }
+            }
+            // Promotion locks other students, so it runs after this student's stripe is released
+            if (seatFreed) {
+                promoteFromWaitlist(course);
+            }
+            return seatFreed;
+        } catch (RuntimeException e) {
+            UNENROLL.failed();
+            throw e;
+        } finally {
+            UNENROLL.record(start);
+        }
+    }
+    
+    // Each promotion claims a seat before taking a student off the waitlist; students who
+    // no longer fit their credit limit (or no longer exist) are dropped and the seat moves on
+    public int promoteFromWaitlist(Course course) {
+        int maxCredits = AppConfig.getInstance().getMaxCreditsPerSemester();
+        int promoted = 0;
+        
+        while (course.getWaitlistSize() > 0 && course.tryReserveSeat()) {
+            String studentId = course.pollWaitlist();
+            if (studentId == null || !enrollWithReservedSeat(studentId, course, maxCredits)) {
+                course.releaseSeat();
+                if (studentId == null) break;
+                continue;
+            }
+            promoted++;
+        }
+        return promoted;
+    }
+    
+    private boolean enrollWithReservedSeat(String studentId, Course course, int maxCredits) {
         Student student = students.get(studentId);
-        if (student != null) {
-            student.enrollInCourse(courseCode);
+        if (student == null) return false;
+        
+        synchronized (lockFor(studentId)) {
+            if (student.isEnrolledIn(course.getCode())) return false;
+            try {
+                checkCreditLimit(student, course, maxCredits);
+            } catch (MaxCreditLimitExceededException e) {
+                return false;
+            }
+            journalEnrollment(studentId, course);
+            student.enrollInCourse(course);
+            enrollments.enroll(studentId, course.getCode());
         }
+        return true;
     }
     
-    public void unenrollStudent(String studentId, String courseCode) {
+    // Re-applies an enrollment admitted before a restart: the credit limit and capacity
+    // were checked when it was first made, so the seat is taken unconditionally
+    public void restoreEnrollment(String studentId, Course course) {
         Student student = students.get(studentId);
-        if (student != null) {
-            student.unenrollFromCourse(courseCode);
+        if (student == null) return;
+        
+        synchronized (lockFor(studentId)) {
+            if (student.isEnrolledIn(course.getCode())) return;
+            changeLog.enrolled(studentId, course.getCode());
+            course.claimSeat();
+            student.enrollInCourse(course);
+            enrollments.enroll(studentId, course.getCode());
+        }
+    }
+    
+    // Grades should go through the service so the live leaderboard sees them
+    public void assignGrade(String studentId, String courseCode, Grade grade) {
+        long start = Metrics.start();
+        try {
+            Student student = students.get(studentId);
+            if (student != null) {
+                synchronized (lockFor(studentId)) {
+                    if (grade == null || !student.isEnrolledIn(courseCode)) return;
+                    changeLog.gradeAssigned(studentId, courseCode, grade);
+                    student.assignGrade(courseCode, grade);
+                    enrollments.recordGrade(studentId, courseCode, grade);
+                    grades.put(studentId, courseCode, grade);
+                    updateLeaderboard(student);
+                }
+            }
+        } catch (RuntimeException e) {
+            ASSIGN_GRADE.failed();
+            throw e;
+        } finally {
+            ASSIGN_GRADE.record(start);
+        }
+    }
+    
+    public EnrollmentService getEnrollments() {
+        return enrollments;
+    }
+    
+    public GradeStore getGradeStore() {
+        return grades;
+    }
+    
+    public List<Enrollment> getRoster(String courseCode) {
+        return enrollments.getRoster(courseCode);
+    }
+    
+    public int getHeadcount(String courseCode) {
+        return enrollments.getHeadcount(courseCode);
+    }
+    
+    // Keeps a GPA ranking current on every save, grade and unenroll, making
+    // getTopStudents O(K) for dashboards that ask for it repeatedly
+    public synchronized void enableLiveLeaderboard() {
+        if (leaderboard == null) {
+            GpaLeaderboard ranking = new GpaLeaderboard();
+            leaderboard = ranking;
+            students.values().forEach(ranking::update);
+        }
+    }
+    
+    public boolean isLiveLeaderboardEnabled() {
+        return leaderboard != null;
+    }
+    
+    private void updateLeaderboard(Student student) {
+        GpaLeaderboard ranking = leaderboard;
+        if (ranking != null) {
+            ranking.update(student);
         }
     }
     
     public List<Student> getTopStudents(int count) {
-        return students.values().stream()
-            .sorted((s1, s2) -> Double.compare(s2.calculateGPA(), s1.calculateGPA()))
-            .limit(count)
-            .collect(Collectors.toList());
+        long start = Metrics.start();
+        try {
+            GpaLeaderboard ranking = leaderboard;
+            if (ranking != null) {
+                return ranking.top(count);
+            }
+            return getTopStudents(count, false);
+        } catch (RuntimeException e) {
+            TOP_STUDENTS.failed();
+            throw e;
+        } finally {
+            TOP_STUDENTS.record(start);
+        }
+    }
+    
+    // Bounded min-heap selection: O(n log K) instead of sorting every student.
+    // The parallel mode fills one heap per worker and merges them. Each student's GPA is
+    // read once and the heap orders on that copy, so concurrent grade changes cannot
+    // reorder entries already in it.
+    public List<Student> getTopStudents(int count, boolean parallel) {
+        if (count <= 0) return new ArrayList<>();
+        
+        TopStudents top = parallel
+            ? students.values().parallelStream().collect(
+                () -> new TopStudents(count), TopStudents::offer, TopStudents::merge)
+            : students.values().stream().collect(
+                () -> new TopStudents(count), TopStudents::offer, TopStudents::merge);
+        return top.toSortedList();
+    }
+    
+    private static final class TopStudents {
+        private final int capacity;
+        private final PriorityQueue<GpaLeaderboard.Entry> heap; // worst of the current top K at the head
+        
+        TopStudents(int capacity) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, Comparator.reverseOrder());
+        }
+        
+        void offer(Student student) {
+            offer(new GpaLeaderboard.Entry(student, student.calculateGPA()));
+        }
+        
+        private void offer(GpaLeaderboard.Entry entry) {
+            if (heap.size() < capacity) {
+                heap.add(entry);
+            } else if (entry.compareTo(heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        
+        void merge(TopStudents other) {
+            other.heap.forEach(this::offer);
+        }
+        
+        List<Student> toSortedList() {
+            List<GpaLeaderboard.Entry> entries = new ArrayList<>(heap);
+            Collections.sort(entries);
+            List<Student> result = new ArrayList<>(entries.size());
+            for (GpaLeaderboard.Entry entry : entries) {
+                result.add(entry.student);
+            }
+            return result;
+        }
     }
 }
\ No newline at end of file
@@ -1,50 +1,229 @@
 package edu.ccrm.util;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 public class FileUtils {
+    private static final int MAX_CACHED_DIRECTORIES = 100_000;
+    
+    // Scan results per directory for scanWriteOnce, reused while the directory's mtime is
+    // unchanged. Adding, removing or renaming an entry bumps the mtime; rewriting a file in
+    // place does not, so only trees whose files are never rewritten may use it.
+    private static final Map<Path, DirectoryScan> CACHE = new ConcurrentHashMap<>();
+    
+    // Sizes and listing of a whole tree in one parallel pass: every directory is listed with
+    // walkFileTree at depth 1 (sizes come from its BasicFileAttributes) and subdirectories
+    // are scanned as ForkJoin subtasks
+    public static DirectoryScan scan(Path directory) throws IOException {
+        return scan(directory, false);
+    }
+    
+    // Same scan, but unchanged directories are served from the cache. Only for write-once
+    // trees such as backups, where files are created by rename and never modified: a file
+    // rewritten in place keeps its old size here until its directory changes.
+    public static DirectoryScan scanWriteOnce(Path directory) throws IOException {
+        return scan(directory, true);
+    }
+    
+    private static DirectoryScan scan(Path directory, boolean useCache) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new DirectoryScan(String.valueOf(directory.getFileName()), null,
+                Collections.emptyList(), Collections.emptyList());
+        }
+        try {
+            return ForkJoinPool.commonPool().invoke(new ScanTask(directory.toAbsolutePath().normalize(), useCache));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    public static void clearScanCache() {
+        CACHE.clear();
+    }
     
     // Recursive method to calculate directory size
     public static long calculateDirectorySize(Path directory) throws IOException {
         if (!Files.exists(directory)) return 0;
-        
-        try (Stream<Path> paths = Files.walk(directory)) {
-            return paths
-                .filter(Files::isRegularFile)
-                .mapToLong(path -> {
-                    try {
-                        return Files.size(path);
-                    } catch (IOException e) {
-                        return 0;
-                    }
-                })
-                .sum();
-        }
+        return scan(directory).getTotalSize();
     }
     
     // Recursive method to list files by depth
     public static void listFilesByDepth(Path directory, int maxDepth) throws IOException {
-        listFilesByDepth(directory, 0, maxDepth);
+        if (!Files.exists(directory)) return;
+        scan(directory).print(maxDepth);
     }
     
-    private static void listFilesByDepth(Path directory, int currentDepth, int maxDepth) throws IOException {
-        if (currentDepth > maxDepth || !Files.exists(directory)) return;
+    private static final class ScanTask extends RecursiveTask<DirectoryScan> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Path directory;
+        private final boolean useCache;
+        
+        ScanTask(Path directory, boolean useCache) {
+            this.directory = directory;
+            this.useCache = useCache;
+        }
+        
+        @Override
+        protected DirectoryScan compute() {
+            try {
+                FileTime modified = Files.getLastModifiedTime(directory);
+                DirectoryScan cached = useCache ? CACHE.get(directory) : null;
+                if (cached != null && modified.equals(cached.modified)) {
+                    return revalidate(cached);
+                }
+                
+                List<DirectoryScan.FileEntry> files = new ArrayList<>();
+                List<Path> subdirectories = new ArrayList<>();
+                list(files, subdirectories);
+                
+                DirectoryScan result = new DirectoryScan(name(), modified, files, scanAll(subdirectories));
+                if (useCache) remember(result);
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         
-        String indent = "  ".repeat(currentDepth);
-        System.out.println(indent + directory.getFileName());
+        // The directory's own entries are unchanged, but a subdirectory may not be
+        private DirectoryScan revalidate(DirectoryScan cached) {
+            List<Path> subdirectories = new ArrayList<>(cached.directories.size());
+            for (DirectoryScan child : cached.directories) {
+                subdirectories.add(directory.resolve(child.name));
+            }
+            List<DirectoryScan> children = scanAll(subdirectories);
+            
+            boolean unchanged = true;
+            for (int i = 0; i < children.size() && unchanged; i++) {
+                unchanged = children.get(i) == cached.directories.get(i);
+            }
+            if (unchanged) return cached;
+            
+            DirectoryScan result = new DirectoryScan(cached.name, cached.modified, cached.files, children);
+            remember(result);
+            return result;
+        }
         
-        if (Files.isDirectory(directory)) {
-            try (Stream<Path> paths = Files.list(directory)) {
-                paths.forEach(path -> {
-                    try {
-                        listFilesByDepth(path, currentDepth + 1, maxDepth);
-                    } catch (IOException e) {
-                        System.err.println("Error listing: " + e.getMessage());
+        private void list(List<DirectoryScan.FileEntry> files, List<Path> subdirectories) throws IOException {
+            Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isDirectory()) {
+                        subdirectories.add(file);
+                    } else if (attrs.isRegularFile()) {
+                        files.add(new DirectoryScan.FileEntry(file.getFileName().toString(), attrs.size()));
                     }
-                });
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE; // unreadable entries count as empty
+                }
+            });
+            files.sort(Comparator.comparing(entry -> entry.name));
+            subdirectories.sort(Comparator.naturalOrder());
+        }
+        
+        private List<DirectoryScan> scanAll(List<Path> subdirectories) {
+            List<ScanTask> tasks = new ArrayList<>(subdirectories.size());
+            for (Path subdirectory : subdirectories) {
+                tasks.add(new ScanTask(subdirectory, useCache));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            
+            List<DirectoryScan> results = new ArrayList<>(tasks.size());
+            for (ScanTask task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        }
+        
+        private void remember(DirectoryScan result) {
+            if (CACHE.size() >= MAX_CACHED_DIRECTORIES) {
+                CACHE.clear();
+            }
+            CACHE.put(directory, result);
+        }
+        
+        private String name() {
+            Path fileName = directory.getFileName();
+            return fileName == null ? directory.toString() : fileName.toString();
+        }
+    }
+    
+    // Immutable result of a scan: a directory's files, its scanned subdirectories and totals
+    public static final class DirectoryScan {
+        private final String name;
+        private final FileTime modified;
+        private final List<FileEntry> files;
+        private final List<DirectoryScan> directories;
+        private final long totalSize;
+        private final int fileCount;
+        
+        DirectoryScan(String name, FileTime modified, List<FileEntry> files, List<DirectoryScan> directories) {
+            this.name = name;
+            this.modified = modified;
+            this.files = Collections.unmodifiableList(files);
+            this.directories = Collections.unmodifiableList(directories);
+            
+            long size = 0;
+            int count = files.size();
+            for (FileEntry file : files) {
+                size += file.size;
+            }
+            for (DirectoryScan directory : directories) {
+                size += directory.totalSize;
+                count += directory.fileCount;
+            }
+            this.totalSize = size;
+            this.fileCount = count;
+        }
+        
+        public String getName() { return name; }
+        public List<FileEntry> getFiles() { return files; }
+        public List<DirectoryScan> getDirectories() { return directories; }
+        public long getTotalSize() { return totalSize; }
+        public int getFileCount() { return fileCount; }
+        
+        // Same layout as the original listFilesByDepth: two spaces of indent per level
+        public void print(int maxDepth) {
+            print(0, maxDepth);
+        }
+        
+        private void print(int depth, int maxDepth) {
+            if (depth > maxDepth) return;
+            System.out.println("  ".repeat(depth) + name);
+            if (depth + 1 > maxDepth) return;
+            
+            String indent = "  ".repeat(depth + 1);
+            for (FileEntry file : files) {
+                System.out.println(indent + file.name);
+            }
+            for (DirectoryScan directory : directories) {
+                directory.print(depth + 1, maxDepth);
+            }
+        }
+        
+        public static final class FileEntry {
+            private final String name;
+            private final long size;
+            
+            FileEntry(String name, long size) {
+                this.name = name;
+                this.size = size;
             }
+            
+            public String getName() { return name; }
+            public long getSize() { return size; }
         }
     }
-}
\ No newline at end of file
+}
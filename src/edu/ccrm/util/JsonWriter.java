@@ -0,0 +1,161 @@
+package edu.ccrm.util;
+
+import java.util.Arrays;
+
+// Minimal streaming JSON writer into a StringBuilder: values are appended as they come,
+// with commas and (optionally) indentation handled per nesting level. Non-finite doubles
+// are written as null, since JSON has no representation for them.
+public class JsonWriter {
+    private final StringBuilder out;
+    private final boolean pretty;
+    private boolean[] hasElements = new boolean[8];
+    private int depth;
+    private boolean afterName;
+    
+    public JsonWriter() {
+        this(new StringBuilder(), false);
+    }
+    
+    public JsonWriter(StringBuilder out, boolean pretty) {
+        this.out = out;
+        this.pretty = pretty;
+    }
+    
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+    
+    public JsonWriter endObject() {
+        return close('}');
+    }
+    
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+    
+    public JsonWriter endArray() {
+        return close(']');
+    }
+    
+    public JsonWriter name(String name) {
+        separator();
+        string(name);
+        out.append(pretty ? ": " : ":");
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+    
+    public JsonWriter value(long value) {
+        separator();
+        out.append(value);
+        return this;
+    }
+    
+    public JsonWriter value(double value) {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(value);
+        }
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) {
+        separator();
+        out.append(value);
+        return this;
+    }
+    
+    public JsonWriter nullValue() {
+        separator();
+        out.append("null");
+        return this;
+    }
+    
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+    
+    private JsonWriter open(char bracket) {
+        separator();
+        out.append(bracket);
+        if (++depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        hasElements[depth] = false;
+        return this;
+    }
+    
+    private JsonWriter close(char bracket) {
+        boolean empty = !hasElements[depth];
+        depth--;
+        if (!empty) newline();
+        out.append(bracket);
+        return this;
+    }
+    
+    // A value right after its name needs nothing; any other element needs a comma if
+    // it is not the first at its level
+    private void separator() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth]) out.append(',');
+            hasElements[depth] = true;
+            newline();
+        }
+    }
+    
+    private void newline() {
+        if (!pretty) return;
+        out.append('\n');
+        for (int i = 0; i < depth; i++) {
+            out.append("    ");
+        }
+    }
+    
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
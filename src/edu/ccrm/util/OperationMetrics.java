@@ -0,0 +1,51 @@
+package edu.ccrm.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Call and error counts plus a latency histogram for one operation. The counts are
+// exact. The histogram holds the sampled calls (see Metrics), and total time is
+// estimated as sampled mean x calls. An unsampled call costs one LongAdder increment.
+public class OperationMetrics implements OperationStatsMXBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+    
+    // Pair with a start from Metrics.start(), typically in a finally block
+    public void record(long startNanos) {
+        if (!Metrics.isEnabled()) return;
+        calls.increment();
+        if (startNanos != Metrics.NOT_SAMPLED) {
+            latency.record(System.nanoTime() - startNanos);
+        }
+    }
+    
+    public void failed() {
+        if (Metrics.isEnabled()) {
+            errors.increment();
+        }
+    }
+    
+    public LatencyHistogram getLatency() { return latency; }
+    
+    @Override public String getName() { return name; }
+    @Override public long getCount() { return calls.sum(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public double getTotalMillis() { return latency.getMean() * calls.sum() / 1e6; }
+    @Override public double getMeanMicros() { return latency.getMean() / 1e3; }
+    @Override public double getP50Micros() { return latency.percentile(50) / 1e3; }
+    @Override public double getP99Micros() { return latency.percentile(99) / 1e3; }
+    @Override public double getP999Micros() { return latency.percentile(99.9) / 1e3; }
+    @Override public double getMaxMicros() { return latency.getMax() / 1e3; }
+    
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,15 @@
+package edu.ccrm.util;
+
+// JMX view of one instrumented operation; latencies are in microseconds
+public interface OperationStatsMXBean {
+    String getName();
+    long getCount();
+    long getErrors();
+    double getTotalMillis();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+    void reset();
+}
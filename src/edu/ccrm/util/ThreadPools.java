@@ -0,0 +1,48 @@
+package edu.ccrm.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for request-style work. The code targets Java 11, so virtual threads are
+// looked up at runtime: on Java 21+ each task gets its own virtual thread, otherwise
+// a fixed pool of daemon platform threads is used.
+public class ThreadPools {
+    private static final Method VIRTUAL_PER_TASK = findVirtualPerTask();
+    
+    private ThreadPools() {}
+    
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_PER_TASK != null;
+    }
+    
+    public static ExecutorService newPerTaskExecutor(String name, int fallbackThreads) {
+        if (VIRTUAL_PER_TASK != null) {
+            try {
+                return (ExecutorService) VIRTUAL_PER_TASK.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads, daemonThreads(name));
+    }
+    
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static Method findVirtualPerTask() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
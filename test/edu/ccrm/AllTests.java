@@ -0,0 +1,58 @@
+package edu.ccrm;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Minimal test runner, since the project has no build tool to pull in JUnit: every public
+// void no-argument method whose name starts with "test" runs on a fresh instance of its
+// class. Exits with status 1 if any test fails.
+// Run with: javac -d bin-test -cp bin $(find test -name '*.java') && java -cp bin:bin-test edu.ccrm.AllTests
+public class AllTests {
+    private static final List<Class<?>> TESTS = Arrays.asList(
+        edu.ccrm.domain.CourseWaitlistTest.class,
+        edu.ccrm.http.ApiServerTest.class,
+        edu.ccrm.io.BackupStoreTest.class,
+        edu.ccrm.io.BinarySnapshotTest.class,
+        edu.ccrm.io.CsvWriterTest.class,
+        edu.ccrm.io.DataFileSelectionTest.class,
+        edu.ccrm.io.DurableStoreTest.class,
+        edu.ccrm.io.TranscriptJobTest.class,
+        edu.ccrm.service.EnrollmentPipelineTest.class,
+        edu.ccrm.service.GpaLeaderboardTest.class,
+        edu.ccrm.service.GpaStatisticsTest.class,
+        edu.ccrm.service.GradeStoreTest.class,
+        edu.ccrm.service.NGramIndexTest.class,
+        edu.ccrm.service.StudentServiceEnrollmentTest.class,
+        edu.ccrm.util.FileUtilsTest.class
+    );
+    
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int failed = 0;
+        for (Class<?> testClass : TESTS) {
+            Method[] methods = testClass.getMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = testClass.getSimpleName() + "." + method.getName();
+                try {
+                    method.invoke(testClass.getDeclaredConstructor().newInstance());
+                    passed++;
+                    System.out.println("PASS " + name);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL " + name + ": " + e.getCause());
+                }
+            }
+        }
+        System.out.printf("%n%d passed, %d failed%n", passed, failed);
+        if (failed > 0) System.exit(1);
+    }
+}
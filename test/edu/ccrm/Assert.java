@@ -0,0 +1,33 @@
+package edu.ccrm;
+
+import java.util.Objects;
+
+// The few assertions the tests need
+public final class Assert {
+    private Assert() {}
+    
+    public static void assertEquals(Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+    
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+    
+    public static <T extends Throwable> T assertThrows(Class<T> type, Executable executable) {
+        try {
+            executable.run();
+        } catch (Throwable thrown) {
+            if (type.isInstance(thrown)) return type.cast(thrown);
+            throw new AssertionError("expected " + type.getSimpleName() + " but got " + thrown, thrown);
+        }
+        throw new AssertionError("expected " + type.getSimpleName() + " to be thrown");
+    }
+    
+    @FunctionalInterface
+    public interface Executable {
+        void run() throws Exception;
+    }
+}
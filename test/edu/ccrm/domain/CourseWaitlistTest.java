@@ -0,0 +1,46 @@
+package edu.ccrm.domain;
+
+import static edu.ccrm.Assert.*;
+
+import java.util.Arrays;
+
+public class CourseWaitlistTest {
+    private final Course course = new Course.Builder("CS101", "Programming").credits(3).capacity(1).build();
+    
+    public void testPollsInJoinOrder() {
+        course.joinWaitlist("S1");
+        course.joinWaitlist("S2");
+        assertEquals("S1", course.pollWaitlist());
+        assertEquals("S2", course.pollWaitlist());
+        assertEquals(null, course.pollWaitlist());
+    }
+    
+    public void testJoiningTwiceKeepsOneEntry() {
+        assertTrue(course.joinWaitlist("S1"), "first join accepted");
+        assertTrue(!course.joinWaitlist("S1"), "second join rejected");
+        assertEquals(Arrays.asList("S1"), course.getWaitlist());
+    }
+    
+    public void testRejoiningGoesToTheBack() {
+        course.joinWaitlist("S1");
+        course.joinWaitlist("S2");
+        assertTrue(course.leaveWaitlist("S1"), "S1 left");
+        course.joinWaitlist("S3");
+        course.joinWaitlist("S1");
+        
+        assertEquals(Arrays.asList("S2", "S3", "S1"), course.getWaitlist());
+        assertEquals(3, course.getWaitlistSize());
+        assertEquals("S2", course.pollWaitlist());
+        assertEquals("S3", course.pollWaitlist());
+        assertEquals("S1", course.pollWaitlist());
+        assertEquals(null, course.pollWaitlist());
+        assertEquals(0, course.getWaitlistSize());
+    }
+    
+    public void testLeftStudentIsNotPolled() {
+        course.joinWaitlist("S1");
+        course.leaveWaitlist("S1");
+        assertTrue(!course.isWaitlisted("S1"), "S1 no longer waitlisted");
+        assertEquals(null, course.pollWaitlist());
+    }
+}
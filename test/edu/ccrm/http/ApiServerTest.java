@@ -0,0 +1,66 @@
+package edu.ccrm.http;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class ApiServerTest {
+    private final StudentService students = new StudentService();
+    private final CourseService courses = new CourseService();
+    private final HttpClient client = HttpClient.newHttpClient();
+    
+    public ApiServerTest() throws Exception {
+        students.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+    }
+    
+    private int status(ApiServer server, String path, String authorization) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path)).GET();
+        if (authorization != null) request.header("Authorization", authorization);
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+    
+    public void testBindsToLoopbackByDefault() throws Exception {
+        try (ApiServer server = new ApiServer(students, courses, AppConfig.getInstance(), 0)) {
+            assertTrue(server.getBaseUrl().startsWith("http://127.0.0.1:"), server.getBaseUrl());
+        }
+    }
+    
+    public void testApiRequiresToken() throws Exception {
+        try (ApiServer server = new ApiServer(students, courses, AppConfig.getInstance(), 0)) {
+            server.start();
+            assertEquals(401, status(server, "/api/students/S1", null));
+            assertEquals(401, status(server, "/api/students/S1", "Bearer wrong"));
+            assertEquals(200, status(server, "/api/students/S1", "Bearer " + server.getToken()));
+            assertEquals(200, status(server, "/health", null));
+        }
+    }
+    
+    public void testCreatingExistingStudentConflicts() throws Exception {
+        try (ApiServer server = new ApiServer(students, courses, AppConfig.getInstance(), 0)) {
+            server.start();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/api/students"))
+                .header("Authorization", "Bearer " + server.getToken())
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "id=S1&regNo=R9&firstName=Grace&lastName=Hopper&email=grace@example.edu"))
+                .build();
+            assertEquals(409, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+            assertEquals("Ada Lovelace", students.findById("S1").getName().getFullName());
+        }
+    }
+    
+    public void testGeneratedTokensDiffer() throws Exception {
+        try (ApiServer first = new ApiServer(students, courses, AppConfig.getInstance(), 0);
+             ApiServer second = new ApiServer(students, courses, AppConfig.getInstance(), 0)) {
+            assertTrue(first.getToken().length() >= 32, "token long enough");
+            assertTrue(!first.getToken().equals(second.getToken()), "tokens differ per server");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BackupStoreTest {
+    private final Path root;
+    private final Path source;
+    private final BackupStore store;
+    
+    public BackupStoreTest() throws Exception {
+        root = Files.createTempDirectory("ccrm-backup");
+        source = Files.createDirectories(root.resolve("data"));
+        Files.write(source.resolve("students.csv"), "S1,Ada,Lovelace\n".getBytes(StandardCharsets.UTF_8));
+        store = new BackupStore(root.resolve("store"));
+    }
+    
+    private void cleanUp() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    private List<Path> filesUnder(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+    
+    public void testRestoreRoundTrip() throws Exception {
+        try {
+            String id = store.backup(source).getManifest().getId();
+            Path target = root.resolve("restored");
+            assertEquals(1, store.restore(id, target));
+            assertEquals("S1,Ada,Lovelace\n",
+                new String(Files.readAllBytes(target.resolve("students.csv")), StandardCharsets.UTF_8));
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testCorruptChunkLeavesNoTempFile() throws Exception {
+        try {
+            String id = store.backup(source).getManifest().getId();
+            for (Path file : filesUnder(root.resolve("store"))) {
+                if (file.getFileName().toString().matches("[0-9a-f]{64}")) {
+                    Files.write(file, "tampered".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            
+            Path target = Files.createDirectories(root.resolve("restored"));
+            assertThrows(IOException.class, () -> store.restore(id, target));
+            assertEquals(0, filesUnder(target).size());
+        } finally {
+            cleanUp();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.StudentService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class BinarySnapshotTest {
+    public void testRoundTripKeepsEnrollmentsGradesAndCredits() throws Exception {
+        StudentService service = new StudentService();
+        Course course = new Course.Builder("CS101", "Programming").credits(4).semester(Semester.FALL).capacity(5).build();
+        Course other = new Course.Builder("MA101", "Calculus").credits(3).semester(Semester.FALL).capacity(5).build();
+        service.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+        service.enrollStudent("S1", course, 20);
+        service.enrollStudent("S1", other, 20);
+        service.assignGrade("S1", "CS101", Grade.A);
+        
+        Path file = Files.createTempFile("ccrm", ".snap");
+        try {
+            BinarySnapshot.write(file, service.findAll(), service::getEnrollments, List.of(course, other),
+                Collections.emptyList());
+            BinarySnapshot.Contents contents = BinarySnapshot.read(file);
+            
+            Student restored = contents.getStudents().get(0);
+            assertEquals(Grade.A, restored.getCourseGrades().get("CS101"));
+            assertEquals(null, restored.getEnrollments().get("MA101"));
+            assertTrue(restored.isEnrolledIn("MA101"), "ungraded enrollment kept");
+            assertEquals(7, restored.getCreditsForSemester(Semester.FALL));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    public void testEnrollmentInUnknownCourseIsRejected() throws Exception {
+        StudentService service = new StudentService();
+        Course course = new Course.Builder("CS101", "Programming").credits(4).semester(Semester.FALL).capacity(5).build();
+        service.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+        service.enrollStudent("S1", course, 20);
+        
+        Path file = Files.createTempFile("ccrm", ".snap");
+        try {
+            // The course itself is left out, as in a damaged or mismatched file
+            BinarySnapshot.write(file, service.findAll(), Collections.emptyList(), Collections.emptyList());
+            assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import java.util.Locale;
+import java.util.Random;
+
+public class CsvWriterTest {
+    private static String fixed2(double value) {
+        StringBuilder out = new StringBuilder();
+        CsvWriter.appendFixed2(out, value);
+        return out.toString();
+    }
+    
+    public void testHalfwayValuesRoundUp() {
+        assertEquals("0.29", fixed2(0.285));
+        assertEquals("1.01", fixed2(1.005));
+        assertEquals("2.68", fixed2(2.675));
+        assertEquals("3.50", fixed2(3.495));
+    }
+    
+    public void testMatchesFormatForEveryThousandth() {
+        for (int i = 0; i <= 4000; i++) {
+            double value = i / 1000.0;
+            assertEquals(String.format(Locale.ROOT, "%.2f", value), fixed2(value));
+        }
+    }
+    
+    public void testWholeAndSmallValues() {
+        assertEquals("0.00", fixed2(0));
+        assertEquals("4.00", fixed2(4));
+        assertEquals("0.01", fixed2(0.005));
+    }
+    
+    public void testNegativeAndOutOfRangeValues() {
+        assertEquals("-1.01", fixed2(-1.005));
+        assertEquals("-0.00", fixed2(-0.001));
+        assertEquals("-0.00", fixed2(-0.0));
+        assertEquals("NaN", fixed2(Double.NaN));
+        assertEquals("Infinity", fixed2(Double.POSITIVE_INFINITY));
+        assertEquals("12345678901.24", fixed2(12345678901.235));
+    }
+    
+    public void testMatchesFormatForRandomValues() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // Mix arbitrary doubles with ones sitting on or next to a half-cent boundary
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(10)) - 1;
+            if (i % 2 == 0) {
+                value = (random.nextInt(2_000_000) * 10 + 5) / 1000.0;
+                if (i % 4 == 0) value = Math.nextAfter(value, random.nextBoolean() ? 0 : 1e12);
+            }
+            assertEquals(String.format(Locale.ROOT, "%.2f", value), fixed2(value));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class DataFileSelectionTest {
+    private final Path dir;
+    
+    public DataFileSelectionTest() throws Exception {
+        dir = Files.createTempDirectory("ccrm-data");
+    }
+    
+    private Path write(String name, long modifiedMillis) throws Exception {
+        Path file = Files.write(dir.resolve(name), new byte[0]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+        return file;
+    }
+    
+    private void cleanUp() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    public void testNewerCompressedFileWins() throws Exception {
+        try {
+            write("students.csv", 1_000_000L);
+            Path compressed = write("students.csv.gz", 2_000_000L);
+            assertEquals(compressed, ImportExportService.findDataFile(dir, "students.csv"));
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testNewerPlainFileWins() throws Exception {
+        try {
+            Path plain = write("students.csv", 2_000_000L);
+            write("students.csv.gz", 1_000_000L);
+            assertEquals(plain, ImportExportService.findDataFile(dir, "students.csv"));
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testSingleOrMissingFile() throws Exception {
+        try {
+            assertEquals(null, ImportExportService.findDataFile(dir, "courses.csv"));
+            Path compressed = write("courses.csv.gz", 1_000_000L);
+            assertEquals(compressed, ImportExportService.findDataFile(dir, "courses.csv"));
+        } finally {
+            cleanUp();
+        }
+    }
+}
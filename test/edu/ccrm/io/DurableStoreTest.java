@@ -0,0 +1,210 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+public class DurableStoreTest {
+    private static final int WRITERS = 4;
+    private static final int STUDENTS_PER_WRITER = 200;
+    
+    private final Path directory;
+    
+    public DurableStoreTest() throws Exception {
+        directory = Files.createTempDirectory("ccrm-journal");
+    }
+    
+    private void cleanUp() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    private static Course course(String code) {
+        return new Course.Builder(code, "Course " + code).credits(3).semester(Semester.FALL).capacity(10_000).build();
+    }
+    
+    // One course, two students (one deleted), an enrollment and a grade
+    private static void populate(StudentService students, CourseService courses) throws Exception {
+        Course course = course("CS101");
+        courses.save(course);
+        students.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+        students.save(new Student("S2", "R2", new Name("Alan", "Turing"), "alan@example.edu"));
+        students.enrollStudent("S1", course, 20);
+        students.assignGrade("S1", "CS101", Grade.A);
+        students.delete("S2");
+    }
+    
+    private static void assertPopulated(StudentService students, CourseService courses) throws Exception {
+        Student ada = students.findById("S1");
+        assertEquals(Grade.A, ada.getCourseGrades().get("CS101"));
+        assertEquals(3, ada.getCreditsForSemester(Semester.FALL));
+        assertEquals(1, courses.findById("CS101").getSeatsTaken());
+        assertTrue(!students.findById("S2").isActive(), "deletion replayed");
+    }
+    
+    public void testReplayUnderEachPolicy() throws Exception {
+        try {
+            for (FsyncPolicy policy : FsyncPolicy.values()) {
+                Path journal = directory.resolve(policy.name());
+                StudentService students = new StudentService();
+                CourseService courses = new CourseService();
+                try (DurableStore store = DurableStore.open(journal, policy, Long.MAX_VALUE, students, courses)) {
+                    populate(students, courses);
+                    assertEquals(6L, store.getRecordCount());
+                    if (policy == FsyncPolicy.NONE) assertEquals(0L, store.getSyncCount());
+                    else assertTrue(store.getSyncCount() > 0, policy + " syncs");
+                }
+                
+                StudentService reopened = new StudentService();
+                CourseService reopenedCourses = new CourseService();
+                try (DurableStore store = DurableStore.open(journal, policy, Long.MAX_VALUE, reopened, reopenedCourses)) {
+                    assertEquals(6L, store.getRecoveredRecords());
+                    assertPopulated(reopened, reopenedCourses);
+                }
+            }
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testTornTailIsTruncated() throws Exception {
+        try {
+            StudentService students = new StudentService();
+            CourseService courses = new CourseService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.ALWAYS, Long.MAX_VALUE, students, courses)) {
+                populate(students, courses);
+                assertEquals(6L, store.getRecordCount());
+            }
+            Path journal = directory.resolve(DurableStore.LOG_FILE);
+            long intact = Files.size(journal);
+            // A record cut off mid-write: its length promises more bytes than follow
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.allocate(6).putInt(100).putShort((short) 7).flip());
+            }
+            
+            StudentService reopened = new StudentService();
+            CourseService reopenedCourses = new CourseService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.ALWAYS, Long.MAX_VALUE,
+                    reopened, reopenedCourses)) {
+                assertEquals(6L, store.getRecoveredRecords());
+                assertEquals(intact, Files.size(journal));
+                assertPopulated(reopened, reopenedCourses);
+                // Appends continue from the cut, so the next open sees them too
+                reopened.assignGrade("S1", "CS101", Grade.B);
+            }
+            
+            StudentService again = new StudentService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.ALWAYS, Long.MAX_VALUE,
+                    again, new CourseService())) {
+                assertEquals(7L, store.getRecoveredRecords());
+                assertEquals(Grade.B, again.findById("S1").getCourseGrades().get("CS101"));
+            }
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testCompactionEmptiesLogAndKeepsState() throws Exception {
+        try {
+            StudentService students = new StudentService();
+            CourseService courses = new CourseService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.GROUP, Long.MAX_VALUE, students, courses)) {
+                populate(students, courses);
+                long before = store.getLogSize();
+                store.compact();
+                assertTrue(store.getLogSize() < before, "log emptied");
+                assertTrue(Files.exists(directory.resolve(DurableStore.SNAPSHOT_FILE)), "snapshot written");
+                students.assignGrade("S1", "CS101", Grade.C);
+            }
+            
+            StudentService reopened = new StudentService();
+            CourseService reopenedCourses = new CourseService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.GROUP, Long.MAX_VALUE,
+                    reopened, reopenedCourses)) {
+                assertEquals(Grade.C, reopened.findById("S1").getCourseGrades().get("CS101"));
+                assertEquals(1, reopenedCourses.findById("CS101").getSeatsTaken());
+                assertTrue(store.getRecoveredRecords() > 0, "snapshot loaded");
+            }
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testCompactionWhileWritersRun() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            StudentService students = new StudentService();
+            CourseService courses = new CourseService();
+            List<Course> catalog = new ArrayList<>();
+            
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.NONE, 16 * 1024, students, courses)) {
+                for (String code : new String[] {"CS101", "MA101", "PH101"}) {
+                    Course course = course(code);
+                    courses.save(course);
+                    catalog.add(course);
+                }
+                
+                AtomicBoolean writing = new AtomicBoolean(true);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int w = 0; w < WRITERS; w++) {
+                    int writer = w;
+                    writers.add(pool.submit(() -> {
+                        for (int i = 0; i < STUDENTS_PER_WRITER; i++) {
+                            String id = "S" + writer + "-" + i;
+                            students.save(new Student(id, "R" + id, new Name("First", "Last"), id + "@example.edu"));
+                            for (Course course : catalog) {
+                                students.enrollStudent(id, course, 20);
+                            }
+                            students.assignGrade(id, "CS101", Grade.values()[i % Grade.values().length]);
+                        }
+                        return null;
+                    }));
+                }
+                Future<?> compactor = pool.submit(() -> {
+                    while (writing.get()) {
+                        store.compact();
+                    }
+                    return null;
+                });
+                
+                // A lock-order cycle between the checkpoint and the writers shows up as a timeout
+                for (Future<?> writer : writers) {
+                    writer.get(60, TimeUnit.SECONDS);
+                }
+                writing.set(false);
+                compactor.get(60, TimeUnit.SECONDS);
+            }
+            
+            StudentService reopened = new StudentService();
+            try (DurableStore store = DurableStore.open(directory, FsyncPolicy.NONE, Long.MAX_VALUE,
+                    reopened, new CourseService())) {
+                assertTrue(store.getRecoveredRecords() > 0, "state recovered");
+                assertEquals(WRITERS * STUDENTS_PER_WRITER, reopened.findAll().size());
+                for (Student original : students.findAll()) {
+                    Student restored = reopened.findById(original.getId());
+                    assertEquals(original.getEnrollments(), restored.getEnrollments());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            cleanUp();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package edu.ccrm.io;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.*;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TranscriptJobTest {
+    private static String fileName(String id) {
+        return TranscriptJob.fileName(new Student(id, "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+    }
+    
+    public void testPlainIdsKeepTheirName() {
+        assertEquals("transcript_S1001.txt", fileName("S1001"));
+        assertEquals("transcript_cs-2024-7.txt", fileName("cs-2024-7"));
+    }
+    
+    public void testEscapedNamesAreDistinct() {
+        Set<String> names = new HashSet<>();
+        for (String id : new String[] {"S.1", "S_1", "S/1", "S 1", "S_002e1", "S\u00e91"}) {
+            assertTrue(names.add(fileName(id)), "unique name for " + id);
+        }
+        assertEquals("transcript_S_005f1.txt", fileName("S_1"));
+        assertEquals("transcript_S_002f_002e_002e_002f1.txt", fileName("S/../1"));
+    }
+}
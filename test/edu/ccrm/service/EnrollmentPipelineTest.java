@@ -0,0 +1,80 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+public class EnrollmentPipelineTest {
+    private final StudentService students = new StudentService();
+    private final CourseService courses = new CourseService();
+    
+    public EnrollmentPipelineTest() throws Exception {
+        students.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+        courses.save(new Course.Builder("CS101", "Programming").credits(3).semester(Semester.FALL).capacity(10).build());
+    }
+    
+    private EnrollmentPipeline newPipeline() {
+        return new EnrollmentPipeline(students, courses, AppConfig.getInstance(), 16, 4, 2);
+    }
+    
+    public void testSecondRequestIsAlreadyEnrolled() throws Exception {
+        try (EnrollmentPipeline pipeline = newPipeline()) {
+            assertEquals(EnrollmentPipeline.Outcome.ENROLLED, pipeline.submit("S1", "CS101").join().getOutcome());
+            assertEquals(EnrollmentPipeline.Outcome.ALREADY_ENROLLED, pipeline.submit("S1", "CS101").join().getOutcome());
+        }
+    }
+    
+    public void testUnknownStudentAndCourse() throws Exception {
+        try (EnrollmentPipeline pipeline = newPipeline()) {
+            assertEquals(EnrollmentPipeline.Outcome.STUDENT_NOT_FOUND, pipeline.submit("S9", "CS101").join().getOutcome());
+            assertEquals(EnrollmentPipeline.Outcome.COURSE_NOT_FOUND, pipeline.submit("S1", "CS999").join().getOutcome());
+        }
+    }
+    
+    public void testEveryRequestCompletesWhenCloseRacesSubmitters() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            EnrollmentPipeline pipeline = newPipeline();
+            ConcurrentLinkedQueue<CompletableFuture<EnrollmentPipeline.Result>> futures = new ConcurrentLinkedQueue<>();
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submitter = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 200; i++) {
+                            futures.add(i % 2 == 0
+                                ? pipeline.submit("S1", "CS101")
+                                : pipeline.trySubmit("S1", "CS101", 1, TimeUnit.SECONDS));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            pipeline.close();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            for (CompletableFuture<EnrollmentPipeline.Result> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS) != null, "request completed");
+            }
+        }
+    }
+    
+    public void testCloseKeepsInterruptFlag() {
+        EnrollmentPipeline pipeline = newPipeline();
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.close();
+            assertTrue(Thread.interrupted(), "interrupt flag restored");
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
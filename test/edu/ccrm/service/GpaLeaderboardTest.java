@@ -0,0 +1,64 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GpaLeaderboardTest {
+    private final StudentService service = new StudentService();
+    private final Course course = new Course.Builder("CS101", "Programming")
+        .credits(3).semester(Semester.FALL).capacity(1000).build();
+    
+    public GpaLeaderboardTest() throws Exception {
+        Grade[] grades = Grade.values();
+        for (int i = 0; i < 200; i++) {
+            String id = String.format("S%03d", i);
+            service.save(new Student(id, "R" + i, new Name("F" + i, "L" + i), id + "@example.edu"));
+            service.enrollStudent(id, course, 20);
+            service.assignGrade(id, "CS101", grades[i % grades.length]);
+        }
+    }
+    
+    private static List<String> ids(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) ids.add(student.getId());
+        return ids;
+    }
+    
+    public void testLiveLeaderboardMatchesHeapSelection() {
+        List<String> expected = ids(service.getTopStudents(25, false));
+        service.enableLiveLeaderboard();
+        assertEquals(expected, ids(service.getTopStudents(25)));
+        assertEquals(expected, ids(service.getTopStudents(25, true)));
+    }
+    
+    public void testLeaderboardFollowsGradeChanges() {
+        service.enableLiveLeaderboard();
+        service.assignGrade("S199", "CS101", Grade.S);
+        service.assignGrade("S000", "CS101", Grade.F);
+        assertEquals(ids(service.getTopStudents(200, false)), ids(service.getTopStudents(200)));
+    }
+    
+    // Heap selection must stay well-formed while GPAs change underneath it
+    public void testHeapSelectionWhileGradesChange() throws Exception {
+        Thread writer = new Thread(() -> {
+            Grade[] grades = Grade.values();
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 200; i++) {
+                    service.assignGrade(String.format("S%03d", i), "CS101", grades[(i + round) % grades.length]);
+                }
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                List<Student> top = service.getTopStudents(10, false);
+                assertEquals(10, top.size());
+            }
+        } finally {
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.*;
+import java.util.*;
+
+public class GpaStatisticsTest {
+    private static final int STUDENTS = 40_000; // spans several blocks of the columnar pass
+    private static final int COURSES = 50;
+    
+    private final List<Student> students = new ArrayList<>();
+    private final GradeStore store = new GradeStore();
+    private final Map<String, String> courseDepartments = new HashMap<>();
+    
+    public GpaStatisticsTest() {
+        Random random = new Random(7);
+        Grade[] grades = Grade.values();
+        for (int c = 0; c < COURSES; c++) {
+            courseDepartments.put("C" + c, "D" + (c % 4));
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("S" + i, "R" + i, new Name("F" + i, "L" + i), "s" + i + "@example.edu");
+            store.addStudent(student.getId());
+            int gradeCount = random.nextInt(6); // some students have no grades at all
+            for (int g = 0; g < gradeCount; g++) {
+                String course = "C" + random.nextInt(COURSES);
+                Grade grade = grades[random.nextInt(grades.length)];
+                student.enrollInCourse(course);
+                student.assignGrade(course, grade);
+                store.put(student.getId(), course, grade);
+            }
+            students.add(student);
+        }
+    }
+    
+    public void testColumnarReportMatchesStudentReport() {
+        GpaStatistics statistics = new GpaStatistics(GpaStatistics.DEFAULT_BOUNDARIES, courseDepartments);
+        GpaStatistics.Report expected = statistics.compute(students);
+        GpaStatistics.Report actual = statistics.compute(store);
+        
+        assertEquals(expected.getStudentCount(), actual.getStudentCount());
+        assertTrue(Math.abs(expected.getMean() - actual.getMean()) < 1e-9, "mean");
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (int i = 0; i < expected.getBucketCount(); i++) {
+            assertEquals(expected.getBucket(i), actual.getBucket(i));
+        }
+        for (double percent : new double[] {1, 25, 50, 90, 99}) {
+            assertEquals(expected.percentile(percent), actual.percentile(percent));
+        }
+        
+        assertEquals(expected.getDepartments().keySet(), actual.getDepartments().keySet());
+        for (String department : expected.getDepartments().keySet()) {
+            GpaStatistics.DepartmentSummary want = expected.getDepartments().get(department);
+            GpaStatistics.DepartmentSummary got = actual.getDepartments().get(department);
+            assertEquals(want.getGradeCount(), got.getGradeCount());
+            assertTrue(Math.abs(want.getMeanGradePoint() - got.getMeanGradePoint()) < 1e-9, "department mean");
+            assertTrue(Math.abs(want.getPassRate() - got.getPassRate()) < 1e-9, "pass rate");
+        }
+    }
+    
+    public void testEmptyStore() {
+        GpaStatistics.Report report = new GpaStatistics().compute(new GradeStore());
+        assertEquals(0L, report.getStudentCount());
+        assertEquals(0.0, report.getMean());
+    }
+}
@@ -0,0 +1,84 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.domain.Grade;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GradeStoreTest {
+    private final GradeStore store = new GradeStore();
+    
+    public void testPutReplaceAndRemoveAcrossPartitions() {
+        for (int i = 0; i < 1000; i++) {
+            store.put("S" + i, "C" + (i % 3), Grade.A);
+            store.put("S" + i, "C" + (i % 3), Grade.B); // replaces, no new row
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            store.remove("S" + i, "C" + (i % 3));
+        }
+        assertEquals(500, store.size());
+        assertEquals(Grade.B, store.get("S1", "C1"));
+        assertEquals(null, store.get("S0", "C0"));
+        assertEquals(null, store.get("S1", "C9"));
+        
+        Map<String, Double> averages = store.getCourseAverages();
+        assertEquals(3, averages.size());
+        assertEquals(Grade.B.getGradePoint(), averages.get("C0"));
+    }
+    
+    public void testVersionChangesOnlyWithGrades() {
+        store.put("S1", "C1", Grade.A);
+        long version = store.getVersion();
+        store.put("S1", "C1", Grade.A);
+        assertEquals(version, store.getVersion());
+        store.put("S2", "C1", Grade.A);
+        assertTrue(store.getVersion() != version, "new row bumps the version");
+    }
+    
+    // Scans run on copies, so each report is internally consistent while writers keep going
+    public void testScansWhileWritersChangeGrades() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; running.get(); i++) {
+                        String studentId = "S" + writer + "-" + (i % 500);
+                        String courseCode = "C" + (i % 7);
+                        if (i % 3 == 0) {
+                            store.remove(studentId, courseCode);
+                        } else {
+                            store.put(studentId, courseCode, Grade.values()[i % Grade.values().length]);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            thread.start();
+            writers.add(thread);
+        }
+        try {
+            for (int scan = 0; scan < 200; scan++) {
+                CourseAnalytics.Report report = new CourseAnalytics().compute(store);
+                long counted = 0;
+                for (CourseAnalytics.CourseSummary summary : report.getCourses()) {
+                    counted += summary.getGradeCount();
+                }
+                assertEquals(report.getGradeCount(), counted);
+            }
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        assertEquals(null, failure.get());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class NGramIndexTest {
+    private final NGramIndex index = new NGramIndex();
+    
+    public NGramIndexTest() {
+        index.put("S1", "Ada Lovelace");
+        index.put("S2", "Alan Turing");
+        index.put("S3", "Grace Hopper");
+    }
+    
+    private List<String> search(String query) {
+        List<String> ids = new ArrayList<>(index.search(query));
+        Collections.sort(ids);
+        return ids;
+    }
+    
+    public void testTrigramQueriesMatchSubstringsIgnoringCase() {
+        assertEquals(List.of("S1"), search("LOVE"));
+        assertEquals(List.of("S1"), search("a lov")); // spans the space between words
+        assertEquals(List.of("S2"), search("turing"));
+        assertEquals(List.of(), search("lovx"));
+        // Every trigram is posted for S3, but the query as a whole is not in its value
+        assertEquals(List.of(), search("hopper grace"));
+    }
+    
+    public void testQueriesShorterThanATrigramScanValues() {
+        assertEquals(List.of("S1", "S2"), search("la"));
+        assertEquals(List.of("S1", "S2", "S3"), search("a"));
+        assertEquals(List.of("S1", "S2", "S3"), search(""));
+        assertEquals(List.of(), search("zz"));
+    }
+    
+    public void testPutReplacesAndRemoveDropsPostings() {
+        index.put("S1", "Ada King");
+        assertEquals(List.of(), search("lovelace"));
+        assertEquals(List.of("S1"), search("king"));
+        index.remove("S1");
+        assertEquals(List.of(), search("king"));
+        assertEquals(List.of("S2"), search("al"));
+    }
+    
+    public void testSearchesRunWhileValuesChange() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 20_000; i++) {
+                    index.put("W" + (i % 100), "Writer " + i);
+                    if (i % 7 == 0) index.remove("W" + (i % 100));
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                assertEquals(List.of("S3"), search("hopper"));
+                search("writer");
+            }
+        } finally {
+            writer.join();
+        }
+        assertEquals(null, failure.get());
+    }
+}
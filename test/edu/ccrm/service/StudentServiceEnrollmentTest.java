@@ -0,0 +1,105 @@
+package edu.ccrm.service;
+
+import static edu.ccrm.Assert.*;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.*;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.OperationMetrics;
+import edu.ccrm.util.ValidationException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StudentServiceEnrollmentTest {
+    private final StudentService service = new StudentService();
+    private final Course course = new Course.Builder("CS101", "Programming")
+        .credits(3).semester(Semester.FALL).capacity(1).build();
+    
+    public StudentServiceEnrollmentTest() throws Exception {
+        service.save(new Student("S1", "R1", new Name("Ada", "Lovelace"), "ada@example.edu"));
+        service.save(new Student("S2", "R2", new Name("Alan", "Turing"), "alan@example.edu"));
+    }
+    
+    public void testEnrollBooksCreditsAndSeat() throws Exception {
+        assertEquals(EnrollmentStatus.ENROLLED, service.enrollStudent("S1", course, 20));
+        assertEquals(3, service.findById("S1").getCreditsForSemester(Semester.FALL));
+        assertEquals(0, course.getAvailableSeats());
+    }
+    
+    public void testUnenrollReleasesCreditsAndPromotesWaitlist() throws Exception {
+        service.enrollStudent("S1", course, 20);
+        assertEquals(EnrollmentStatus.WAITLISTED, service.enrollStudent("S2", course, 20));
+        
+        service.unenrollStudent("S1", course);
+        assertEquals(0, service.findById("S1").getCreditsForSemester(Semester.FALL));
+        assertTrue(service.findById("S2").isEnrolledIn("CS101"), "S2 promoted from the waitlist");
+        assertEquals(3, service.findById("S2").getCreditsForSemester(Semester.FALL));
+        assertEquals(0, course.getAvailableSeats());
+        assertEquals(0, course.getWaitlistSize());
+    }
+    
+    public void testSaveIfAbsentKeepsExistingStudent() throws Exception {
+        assertTrue(!service.saveIfAbsent(new Student("S1", "R9", new Name("Grace", "Hopper"), "grace@example.edu")),
+            "existing ID refused");
+        assertEquals("R1", service.findById("S1").getRegNo());
+        assertTrue(service.saveIfAbsent(new Student("S3", "R3", new Name("Grace", "Hopper"), "grace@example.edu")),
+            "new ID added");
+    }
+    
+    public void testUnenrollReportsWhetherStudentWasEnrolled() throws Exception {
+        service.enrollStudent("S1", course, 20);
+        assertTrue(service.unenrollStudent("S1", course), "first unenroll removes the enrollment");
+        assertTrue(!service.unenrollStudent("S1", course), "second unenroll finds nothing");
+    }
+    
+    public void testFailedCallsAreCountedAsErrors() throws Exception {
+        OperationMetrics save = Metrics.operation("StudentService.save");
+        long errors = save.getErrors();
+        long calls = save.getCount();
+        assertThrows(ValidationException.class, () -> service.save(new Student(null, "R9", new Name("A", "B"), "a@b.c")));
+        assertEquals(errors + 1, save.getErrors());
+        assertEquals(calls + 1, save.getCount());
+    }
+    
+    public void testRejectedJournalAppendLeavesStateUnchanged() throws Exception {
+        service.setChangeLog(new ChangeLog() {
+            @Override
+            public void enrolled(String studentId, String courseCode) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        });
+        assertThrows(UncheckedIOException.class, () -> service.enrollStudent("S1", course, 20));
+        assertTrue(!service.findById("S1").isEnrolledIn("CS101"), "enrollment not applied");
+        assertEquals(0, service.findById("S1").getCreditsForSemester(Semester.FALL));
+        assertEquals(1, course.getAvailableSeats());
+    }
+    
+    public void testBackupNeedsCourseCatalog() {
+        assertThrows(IllegalStateException.class, service::backup);
+    }
+    
+    public void testBackupWritesStudentsWithTheirCourses() throws Exception {
+        CourseService courses = new CourseService();
+        courses.save(course);
+        service.setCourseCatalog(courses);
+        service.enrollStudent("S1", course, 20);
+        
+        Path directory = AppConfig.getInstance().getSnapshotDirectory();
+        Path studentFile = directory.resolve("students.snap");
+        Path courseFile = directory.resolve("courses.snap");
+        try {
+            service.backup();
+            courses.backup();
+            BinarySnapshot.Contents restored = BinarySnapshot.read(studentFile);
+            assertEquals(2, restored.getStudents().size());
+            assertEquals(1, restored.getCourses().size());
+            assertEquals(1, BinarySnapshot.read(courseFile).getCourses().size());
+        } finally {
+            Files.deleteIfExists(studentFile);
+            Files.deleteIfExists(courseFile);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package edu.ccrm.util;
+
+import static edu.ccrm.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class FileUtilsTest {
+    private final Path root;
+    
+    public FileUtilsTest() throws Exception {
+        root = Files.createTempDirectory("ccrm-scan");
+        Files.write(Files.createDirectories(root.resolve("data")).resolve("a.csv"), new byte[10]);
+        // An old mtime, so any later change to the directory is visible
+        Files.setLastModifiedTime(root.resolve("data"), FileTime.fromMillis(1_000_000L));
+    }
+    
+    private void cleanUp() throws Exception {
+        FileUtils.clearScanCache();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    public void testScanSeesFileRewrittenInPlace() throws Exception {
+        try {
+            assertEquals(10L, FileUtils.scan(root).getTotalSize());
+            Path file = root.resolve("data").resolve("a.csv");
+            Files.write(file, new byte[25]);
+            Files.setLastModifiedTime(root.resolve("data"), FileTime.fromMillis(1_000_000L));
+            assertEquals(25L, FileUtils.scan(root).getTotalSize());
+        } finally {
+            cleanUp();
+        }
+    }
+    
+    public void testWriteOnceScanSeesNewFiles() throws Exception {
+        try {
+            assertEquals(10L, FileUtils.scanWriteOnce(root).getTotalSize());
+            Files.write(root.resolve("data").resolve("b.csv"), new byte[5]);
+            FileUtils.DirectoryScan scan = FileUtils.scanWriteOnce(root);
+            assertEquals(15L, scan.getTotalSize());
+            assertEquals(2, scan.getFileCount());
+        } finally {
+            cleanUp();
+        }
+    }
+}